@@ -0,0 +1,31 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all benchmarks with gc profiler, reporting throughput and allocation rate. Optional first argument is a regular
+ * expression to select benchmarks.
+ * <p>
+ * Equivalent command line: <code>java -jar target/benchmarks.jar -prof gc</code>
+ * </p>
+ *
+ * @author sali
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = (args.length > 0) ? args[0] : BenchmarkRunner.class.getPackage().getName() + ".*";
+        Options options = new OptionsBuilder().include(include).addProfiler(GCProfiler.class).build();
+        new Runner(options).run();
+    }
+}
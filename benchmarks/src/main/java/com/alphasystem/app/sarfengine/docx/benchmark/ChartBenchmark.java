@@ -0,0 +1,92 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx.benchmark;
+
+import com.alphasystem.app.sarfengine.conjugation.model.SarfChart;
+import com.alphasystem.app.sarfengine.conjugation.model.SarfTerm;
+import com.alphasystem.app.sarfengine.docx.AbbreviatedConjugation;
+import com.alphasystem.app.sarfengine.docx.ConjugationHelper;
+import com.alphasystem.app.sarfengine.docx.DetailedConjugation;
+import com.alphasystem.app.sarfengine.docx.MainConjugation;
+import com.alphasystem.sarfengine.xml.model.ChartConfiguration;
+import org.docx4j.XmlUtils;
+import org.docx4j.openpackaging.parts.WordprocessingML.MainDocumentPart;
+import org.docx4j.wml.Tbl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.alphasystem.openxml.builder.OpenXmlAdapter.createNewDoc;
+
+/**
+ * Benchmarks of single chart building blocks.
+ *
+ * @author sali
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChartBenchmark {
+
+    @Param({ChartFixtures.TRILATERAL, ChartFixtures.QUADRILATERAL})
+    public String kind;
+
+    private SarfChart sarfChart;
+
+    private List<SarfTerm> sarfTerms;
+
+    private ChartConfiguration configuration;
+
+    private MainDocumentPart mainDocumentPart;
+
+    @Setup
+    public void setup() throws Exception {
+        sarfChart = ChartFixtures.createChart(kind);
+        sarfTerms = ConjugationHelper.fromSarfKabeer(sarfChart.getSarfKabeer());
+        configuration = new ChartConfiguration();
+        mainDocumentPart = createNewDoc().getMainDocumentPart();
+    }
+
+    @Benchmark
+    public List<SarfTerm> fromSarfKabeer() {
+        return ConjugationHelper.fromSarfKabeer(sarfChart.getSarfKabeer());
+    }
+
+    /**
+     * Builds detailed conjugation table, the biggest source of allocation, compare <code>gc.alloc.rate.norm</code>
+     * reported by {@link BenchmarkRunner} for allocation per chart.
+     */
+    @Benchmark
+    public Tbl detailedConjugation() {
+        return new DetailedConjugation(sarfTerms).getChart();
+    }
+
+    /**
+     * Builds and marshals detailed conjugation table, returned value is the size of marshalled table so the effect of
+     * shared formatting on both allocation and document size can be compared.
+     */
+    @Benchmark
+    public int detailedConjugationXml() {
+        return XmlUtils.marshaltoString(new DetailedConjugation(sarfTerms).getChart(), true, false).length();
+    }
+
+    @Benchmark
+    public Tbl abbreviatedConjugation() {
+        return new AbbreviatedConjugation(configuration, sarfChart.getSarfSagheer(), sarfChart.getChartTitle())
+                .getChart();
+    }
+
+    @Benchmark
+    public int mainConjugation() throws Exception {
+        new MainConjugation(sarfChart, configuration).convert(mainDocumentPart);
+        List<Object> content = mainDocumentPart.getContent();
+        int size = content.size();
+        content.clear();
+        return size;
+    }
+}
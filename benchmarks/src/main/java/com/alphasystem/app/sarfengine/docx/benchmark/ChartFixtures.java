@@ -0,0 +1,146 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx.benchmark;
+
+import com.alphasystem.app.sarfengine.conjugation.model.SarfChart;
+import com.alphasystem.app.sarfengine.docx.SarfEngineHelper;
+import com.alphasystem.arabic.model.ArabicLetterType;
+import com.alphasystem.arabic.model.NamedTemplate;
+import com.alphasystem.sarfengine.xml.model.NounOfPlaceAndTime;
+import com.alphasystem.sarfengine.xml.model.VerbalNoun;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.alphasystem.arabic.model.ArabicLetterType.*;
+
+/**
+ * Representative inputs shared by benchmarks.
+ * <p>
+ * Charts created by {@link #createCharts(int)} are distinct in content (root letters and translation), so that
+ * content keyed caches do not turn repeated charts into cache hits which a real book would not get.
+ * </p>
+ * <p>
+ * Templates can be overridden by system properties <code>benchmark.trilateralTemplate</code> and
+ * <code>benchmark.quadrilateralTemplate</code>.
+ * </p>
+ *
+ * @author sali
+ */
+public final class ChartFixtures {
+
+    public static final String TRILATERAL = "TRILATERAL";
+
+    public static final String QUADRILATERAL = "QUADRILATERAL";
+
+    private static final NamedTemplate TRILATERAL_TEMPLATE = NamedTemplate.valueOf(
+            System.getProperty("benchmark.trilateralTemplate", "FORM_I_CATEGORY_A_GROUP_U_TEMPLATE"));
+
+    private static final NamedTemplate QUADRILATERAL_TEMPLATE = NamedTemplate.valueOf(
+            System.getProperty("benchmark.quadrilateralTemplate", "FORM_I_QUADRILATERAL_TEMPLATE"));
+
+    private static final List<VerbalNoun> NO_VERBAL_NOUNS = Collections.emptyList();
+
+    private static final List<NounOfPlaceAndTime> NO_ADVERBS = Collections.emptyList();
+
+    /**
+     * Sound (non weak) letters used to derive distinct roots.
+     */
+    private static final ArabicLetterType[] SOUND_LETTERS = {FA, AIN, LAM, MEEM, RA, NOON, DTHA};
+
+    private ChartFixtures() {
+    }
+
+    /**
+     * @param kind either {@link #TRILATERAL} or {@link #QUADRILATERAL}
+     * @return conjugated chart
+     */
+    public static SarfChart createChart(String kind) {
+        SarfEngineHelper helper = new SarfEngineHelper();
+        if (QUADRILATERAL.equals(kind)) {
+            helper.add(QUADRILATERAL_TEMPLATE, false, false, "fa'lala", FA, AIN, LAM, LAM, NO_VERBAL_NOUNS,
+                    NO_ADVERBS);
+        } else {
+            helper.add(TRILATERAL_TEMPLATE, false, false, "fa'ala", FA, AIN, LAM, NO_VERBAL_NOUNS, NO_ADVERBS);
+        }
+        return helper.getCharts().first();
+    }
+
+    /**
+     * @param kind  either {@link #TRILATERAL} or {@link #QUADRILATERAL}
+     * @param index index of the chart, charts of different indices differ in translation and, for the first few
+     *              hundred indices, in root letters
+     * @return conjugated chart
+     */
+    public static SarfChart createChart(String kind, int index) {
+        SarfEngineHelper helper = new SarfEngineHelper();
+        String translation = "chart " + index;
+        if (QUADRILATERAL.equals(kind)) {
+            ArabicLetterType[] letters = rootLetters(index, 4);
+            helper.add(QUADRILATERAL_TEMPLATE, false, false, translation, letters[0], letters[1], letters[2],
+                    letters[3], NO_VERBAL_NOUNS, NO_ADVERBS);
+        } else {
+            ArabicLetterType[] letters = rootLetters(index, 3);
+            helper.add(TRILATERAL_TEMPLATE, false, false, translation, letters[0], letters[1], letters[2],
+                    NO_VERBAL_NOUNS, NO_ADVERBS);
+        }
+        return helper.getCharts().first();
+    }
+
+    /**
+     * Creates given number of distinct charts alternating between trilateral and quadrilateral charts.
+     *
+     * @param count number of charts
+     * @return charts
+     */
+    public static SarfChart[] createCharts(int count) {
+        SarfChart[] charts = new SarfChart[count];
+        for (int i = 0; i < count; i++) {
+            charts[i] = createChart((i % 2 == 0) ? TRILATERAL : QUADRILATERAL, i / 2);
+        }
+        return charts;
+    }
+
+    /**
+     * @param index index of the root, roots repeat once all permutations of {@link #SOUND_LETTERS} are used
+     * @param count number of root letters
+     * @return distinct letters of the root of given index
+     */
+    private static ArabicLetterType[] rootLetters(int index, int count) {
+        List<ArabicLetterType> available = new ArrayList<>(Arrays.asList(SOUND_LETTERS));
+        ArabicLetterType[] letters = new ArabicLetterType[count];
+        int value = index;
+        for (int i = 0; i < count; i++) {
+            int size = available.size();
+            letters[i] = available.remove(value % size);
+            value /= size;
+        }
+        return letters;
+    }
+
+    /**
+     * Stream discarding all bytes, used to keep disk I/O out of measurements.
+     */
+    public static final class NullOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
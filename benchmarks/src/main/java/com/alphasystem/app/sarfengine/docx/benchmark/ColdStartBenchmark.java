@@ -0,0 +1,80 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx.benchmark;
+
+import com.alphasystem.app.sarfengine.conjugation.model.SarfChart;
+import com.alphasystem.app.sarfengine.docx.SarfEngine;
+import com.alphasystem.app.sarfengine.docx.SarfEngineHelper;
+import com.alphasystem.app.sarfengine.docx.SarfEngineLauncher;
+import com.alphasystem.arabic.model.NamedTemplate;
+import com.alphasystem.sarfengine.xml.model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static com.alphasystem.arabic.model.ArabicLetterType.*;
+
+/**
+ * Cold start time to the first written file of a single chart template, each measurement runs in a fresh JVM.
+ * <p>
+ * <code>sequential</code> initializes everything on first use on the calling thread, <code>launcher</code> uses
+ * {@link SarfEngineLauncher}. Both modes stream the document, so only initialization differs. To measure with a class data sharing archive pass
+ * <code>-jvmArgsAppend -XX:SharedArchiveFile=sarf-engine.jsa</code>.
+ * </p>
+ *
+ * @author sali
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class ColdStartBenchmark {
+
+    @Param({"sequential", "launcher"})
+    public String mode;
+
+    private ConjugationTemplate template;
+
+    private File outputFile;
+
+    @Setup
+    public void setup() throws IOException {
+        RootLetters rootLetters = new RootLetters();
+        rootLetters.setFirstRadical(FA);
+        rootLetters.setSecondRadical(AIN);
+        rootLetters.setThirdRadical(LAM);
+        ConjugationData data = new ConjugationData();
+        data.setTemplate(NamedTemplate.valueOf(System.getProperty("benchmark.trilateralTemplate",
+                "FORM_I_CATEGORY_A_GROUP_U_TEMPLATE")));
+        data.setRootLetters(rootLetters);
+        data.setTranslation("fa'ala");
+        data.setConfiguration(new ConjugationConfiguration());
+        template = new ConjugationTemplate();
+        template.getData().add(data);
+        outputFile = Files.createTempFile("cold-start", ".docx").toFile();
+        outputFile.deleteOnExit();
+    }
+
+    @Benchmark
+    public long firstFile() throws Exception {
+        ChartConfiguration configuration = new ChartConfiguration();
+        if ("launcher".equals(mode)) {
+            SarfEngineLauncher.run(template, outputFile, configuration);
+        } else {
+            SarfEngineHelper helper = new SarfEngineHelper();
+            helper.addAll(template);
+            // same write path as the launcher, only initialization differs
+            SarfEngine sarfEngine = new SarfEngine(outputFile, configuration,
+                    helper.getCharts().toArray(new SarfChart[0]));
+            sarfEngine.setStreaming(true);
+            sarfEngine.convert();
+        }
+        return outputFile.length();
+    }
+}
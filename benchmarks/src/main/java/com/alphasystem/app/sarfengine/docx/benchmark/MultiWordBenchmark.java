@@ -0,0 +1,66 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx.benchmark;
+
+import com.alphasystem.app.sarfengine.docx.ConjugationHelper;
+import com.alphasystem.app.sarfengine.docx.UnicodeCache;
+import com.alphasystem.arabic.model.ArabicWord;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.alphasystem.arabic.model.ArabicLetterType.*;
+import static com.alphasystem.arabic.model.ArabicWord.concatenateWithAnd;
+import static com.alphasystem.arabic.model.ArabicWord.getWord;
+
+/**
+ * Compares single pass {@link ConjugationHelper#getMultiWord(ArabicWord[])} and
+ * {@link ConjugationHelper#getMultiWordUnicode(ArabicWord[], UnicodeCache)} with repeated pairwise concatenation, for
+ * verbs with many verbal nouns or adverbs. Unicode variant uses a new cache per invocation, so that no word is already
+ * converted.
+ *
+ * @author sali
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MultiWordBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int wordCount;
+
+    private ArabicWord[] words;
+
+    @Setup
+    public void setup() {
+        ArabicWord[] samples = {getWord(FA, AIN, LAM), getWord(MEEM, FA, AIN, LAM), getWord(FA, AIN, ALIF, LAM),
+                getWord(MEEM, FA, AIN, LAM, HA)};
+        words = new ArabicWord[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            words[i] = samples[i % samples.length];
+        }
+    }
+
+    @Benchmark
+    public String singlePass() {
+        return ConjugationHelper.getMultiWord(words).toUnicode();
+    }
+
+    @Benchmark
+    public String singlePassUnicode() {
+        return ConjugationHelper.getMultiWordUnicode(words, new UnicodeCache(16));
+    }
+
+    @Benchmark
+    public String pairwise() {
+        ArabicWord w = words[0];
+        for (int i = 1; i < words.length; i++) {
+            w = concatenateWithAnd(w, words[i]);
+        }
+        return w.toUnicode();
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx.benchmark;
+
+import com.alphasystem.app.sarfengine.conjugation.model.SarfChart;
+import com.alphasystem.app.sarfengine.docx.SarfEngine;
+import com.alphasystem.sarfengine.xml.model.ChartConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end conversion of charts into an in memory sink, excluding disk I/O.
+ *
+ * @author sali
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class SarfEngineBenchmark {
+
+    @Param({"1", "100", "5000"})
+    public int chartCount;
+
+    private SarfChart[] sarfCharts;
+
+    @Setup
+    public void setup() {
+        sarfCharts = ChartFixtures.createCharts(chartCount);
+    }
+
+    @Benchmark
+    public long convert() throws Exception {
+        SarfEngine sarfEngine = new SarfEngine(new ChartConfiguration(), sarfCharts);
+        ChartFixtures.NullOutputStream outputStream = new ChartFixtures.NullOutputStream();
+        sarfEngine.convert(outputStream);
+        return outputStream.getCount();
+    }
+}
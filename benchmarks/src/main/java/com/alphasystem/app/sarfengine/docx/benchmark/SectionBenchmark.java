@@ -0,0 +1,48 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx.benchmark;
+
+import com.alphasystem.app.sarfengine.conjugation.model.SarfChart;
+import com.alphasystem.app.sarfengine.docx.MainConjugation;
+import com.alphasystem.sarfengine.xml.model.ChartConfiguration;
+import org.docx4j.wml.Tbl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a chart with each combination of sections, abbreviated-only charts should only pay for the abbreviated
+ * conjugation table.
+ *
+ * @author sali
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SectionBenchmark {
+
+    @Param({"ALL", "ABBREVIATED_ONLY", "DETAILED_ONLY"})
+    public String sections;
+
+    private SarfChart sarfChart;
+
+    private ChartConfiguration configuration;
+
+    @Setup
+    public void setup() {
+        sarfChart = ChartFixtures.createChart(ChartFixtures.TRILATERAL);
+        configuration = new ChartConfiguration();
+        configuration.setOmitDetailedConjugation("ABBREVIATED_ONLY".equals(sections));
+        configuration.setOmitAbbreviatedConjugation("DETAILED_ONLY".equals(sections));
+    }
+
+    @Benchmark
+    public List<Tbl> mainConjugation() throws Exception {
+        return new MainConjugation(sarfChart, configuration).getCharts();
+    }
+}
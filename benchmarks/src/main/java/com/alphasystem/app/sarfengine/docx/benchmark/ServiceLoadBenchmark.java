@@ -0,0 +1,86 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx.benchmark;
+
+import com.alphasystem.app.sarfengine.conjugation.model.SarfChart;
+import com.alphasystem.app.sarfengine.docx.SarfEngine;
+import com.alphasystem.app.sarfengine.docx.SarfEngineService;
+import com.alphasystem.sarfengine.xml.model.ChartConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load of many concurrent single chart exports, compares a fixed pool of platform threads (current model) with a
+ * virtual thread per job. Virtual mode fails on runtimes without virtual threads instead of silently measuring the
+ * shared executor, run it on Java 21 or newer.
+ *
+ * @author sali
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceLoadBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    private static final int JOBS = 1000;
+
+    private SarfChart[] sarfCharts;
+
+    private ChartConfiguration configuration;
+
+    private ExecutorService platformExecutor;
+
+    private SarfEngineService service;
+
+    @Setup
+    public void setup() {
+        sarfCharts = ChartFixtures.createCharts(JOBS);
+        configuration = new ChartConfiguration();
+        configuration.setOmitToc(true);
+        if ("virtual".equals(mode)) {
+            if (!SarfEngineService.isVirtualThreadsSupported()) {
+                throw new IllegalStateException("Virtual threads are not supported by this runtime: "
+                        + System.getProperty("java.version"));
+            }
+            service = SarfEngineService.virtualThreads();
+        } else {
+            platformExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+            service = new SarfEngineService(platformExecutor);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (platformExecutor != null) {
+            platformExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Submits a burst of exports at once and waits for all of them, score is number of exports per second.
+     */
+    @Benchmark
+    @OperationsPerInvocation(JOBS)
+    public long exports() {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<byte[]>[] futures = new CompletableFuture[JOBS];
+        for (int i = 0; i < JOBS; i++) {
+            futures[i] = service.submitForBytes(new SarfEngine(configuration, sarfCharts[i]));
+        }
+        long bytes = 0;
+        for (CompletableFuture<byte[]> future : futures) {
+            bytes += future.join().length;
+        }
+        return bytes;
+    }
+}
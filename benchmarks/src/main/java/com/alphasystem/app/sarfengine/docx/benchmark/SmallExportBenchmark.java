@@ -0,0 +1,70 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx.benchmark;
+
+import com.alphasystem.app.sarfengine.conjugation.model.SarfChart;
+import com.alphasystem.app.sarfengine.docx.BasePackage;
+import com.alphasystem.app.sarfengine.docx.MainConjugation;
+import com.alphasystem.app.sarfengine.docx.SarfEngine;
+import com.alphasystem.app.sarfengine.docx.UnicodeCache;
+import com.alphasystem.sarfengine.xml.model.ChartConfiguration;
+import org.docx4j.Docx4J;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of exporting a small document into memory, e.g., a single chart served by a request.
+ * <p>
+ * <code>loadedPackage</code> is the previous export path, a package loaded from the base package bytes, filled and
+ * saved by docx4j. <code>streamingWriter</code> is the current path of {@link SarfEngine#convert(java.io.OutputStream)}
+ * which copies static parts from the base package bytes. Run with <code>-prof gc</code> to compare allocation too.
+ * </p>
+ *
+ * @author sali
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SmallExportBenchmark {
+
+    @Param({"1", "10"})
+    public int chartCount;
+
+    private SarfChart[] sarfCharts;
+
+    private ChartConfiguration configuration;
+
+    @Setup
+    public void setup() throws Exception {
+        sarfCharts = ChartFixtures.createCharts(chartCount);
+        configuration = new ChartConfiguration();
+        BasePackage.initialize();
+    }
+
+    @Benchmark
+    public long loadedPackage() throws Exception {
+        WordprocessingMLPackage wordprocessingMLPackage = BasePackage.newPackage();
+        UnicodeCache unicodeCache = new UnicodeCache();
+        for (int i = 0; i < sarfCharts.length; i++) {
+            new MainConjugation(sarfCharts[i], configuration, i + 1, unicodeCache)
+                    .convert(wordprocessingMLPackage.getMainDocumentPart());
+        }
+        ChartFixtures.NullOutputStream outputStream = new ChartFixtures.NullOutputStream();
+        Docx4J.save(wordprocessingMLPackage, outputStream, Docx4J.FLAG_NONE);
+        return outputStream.getCount();
+    }
+
+    @Benchmark
+    public long streamingWriter() throws Exception {
+        SarfEngine sarfEngine = new SarfEngine(configuration, sarfCharts);
+        ChartFixtures.NullOutputStream outputStream = new ChartFixtures.NullOutputStream();
+        sarfEngine.convert(outputStream);
+        return outputStream.getCount();
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx.benchmark;
+
+import com.alphasystem.app.sarfengine.conjugation.model.SarfChart;
+import com.alphasystem.app.sarfengine.docx.MainConjugation;
+import com.alphasystem.app.sarfengine.docx.UnicodeCache;
+import com.alphasystem.sarfengine.xml.model.ChartConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building tables of a book of distinct charts with the document Unicode cache (<code>maxSize=10000</code>) and
+ * without it (<code>maxSize=0</code>). Only labels shared between charts go through the cache. Hits, misses and the
+ * number of values retained by the cache at the end of each book are reported as secondary results, so the score can
+ * be read together with how often the cache actually hits and what it keeps alive.
+ *
+ * @author sali
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UnicodeCacheBenchmark {
+
+    @Param({"0", "10000"})
+    public int maxSize;
+
+    @Param({"100"})
+    public int chartCount;
+
+    private SarfChart[] sarfCharts;
+
+    private ChartConfiguration configuration;
+
+    @Setup
+    public void setup() {
+        sarfCharts = ChartFixtures.createCharts(chartCount);
+        configuration = new ChartConfiguration();
+    }
+
+    /**
+     * Counters of the cache, accumulated over all invocations.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CacheCounters {
+
+        public long hits;
+
+        public long misses;
+
+        public long retained;
+    }
+
+    @Benchmark
+    public int book(CacheCounters counters) throws Exception {
+        UnicodeCache unicodeCache = new UnicodeCache(maxSize);
+        int tables = 0;
+        for (int i = 0; i < sarfCharts.length; i++) {
+            tables += new MainConjugation(sarfCharts[i], configuration, i + 1, unicodeCache).getCharts().size();
+        }
+        counters.hits += unicodeCache.getHits();
+        counters.misses += unicodeCache.getMisses();
+        counters.retained += unicodeCache.size();
+        return tables;
+    }
+}
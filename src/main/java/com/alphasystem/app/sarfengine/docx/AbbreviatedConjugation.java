@@ -22,7 +22,6 @@ import static com.alphasystem.app.sarfengine.docx.ConjugationHelper.*;
 import static com.alphasystem.openxml.builder.OpenXmlAdapter.createCTMarkupRange;
 import static com.alphasystem.openxml.builder.OpenXmlAdapter.getText;
 import static com.alphasystem.openxml.builder.OpenXmlBuilderFactory.*;
-import static com.alphasystem.util.IdGenerator.nextId;
 import static java.lang.String.format;
 
 /**
@@ -40,6 +39,14 @@ public class AbbreviatedConjugation {
 
     private final TableAdapter tableAdapter;
 
+    private final IdSequence ids;
+
+    private final int chartNumber;
+
+    private final UnicodeCache unicodeCache;
+
+    private String bookmarkId;
+
     /**
      * @param configuration
      * @param sarfSagheer
@@ -47,7 +54,24 @@ public class AbbreviatedConjugation {
      */
     public AbbreviatedConjugation(ChartConfiguration configuration,
                                   SarfSagheer sarfSagheer, ConjugationHeader conjugationHeader) {
+        this(configuration, sarfSagheer, conjugationHeader, new IdSequence(), 1, new UnicodeCache());
+    }
+
+    /**
+     * @param configuration
+     * @param sarfSagheer
+     * @param conjugationHeader
+     * @param ids               id sequence of the chart
+     * @param chartNumber       one based number of the chart in the document, used as bookmark id of chart title
+     * @param unicodeCache      Unicode cache of the document
+     */
+    public AbbreviatedConjugation(ChartConfiguration configuration,
+                                  SarfSagheer sarfSagheer, ConjugationHeader conjugationHeader,
+                                  IdSequence ids, int chartNumber, UnicodeCache unicodeCache) {
         this.configuration = configuration;
+        this.ids = ids;
+        this.chartNumber = chartNumber;
+        this.unicodeCache = unicodeCache;
         this.sarfSagheer = sarfSagheer;
         this.conjugationHeader = conjugationHeader;
         tableAdapter = new TableAdapter(4).startTable();
@@ -59,7 +83,8 @@ public class AbbreviatedConjugation {
             tableAdapter
                     .startRow()
                     .addColumn(0, null, null, getArabicTextP(null, activeLine.getActiveParticipleMasculine()))
-                    .addColumn(1, null, null, getArabicTextP(null, getMultiWord(activeLine.getVerbalNouns())))
+                    .addColumn(1, null, null, getArabicTextP(getMultiWordUnicode(activeLine.getVerbalNouns(),
+                            unicodeCache)))
                     .addColumn(2, null, null, getArabicTextP(null, activeLine.getPresentTense()))
                     .addColumn(3, null, null, getArabicTextP(null, activeLine.getPastTense()))
                     .endRow();
@@ -77,8 +102,8 @@ public class AbbreviatedConjugation {
     }
 
     private void addHeaderRow() {
-        String rsidR = nextId();
-        String rsidP = nextId();
+        String rsidR = ids.nextId();
+        String rsidP = ids.nextId();
 
         // Root Word
         P rootWordsPara = getRootWordsPara(rsidR, rsidP);
@@ -87,7 +112,7 @@ public class AbbreviatedConjugation {
         P translationPara = getTranslationPara(rsidR, rsidP);
 
         // second column paras
-        String rsidRpr = nextId();
+        String rsidRpr = ids.nextId();
         P labelP1 = getHeaderLabelPara(rsidR, rsidRpr, rsidP,
                 conjugationHeader.getTypeLabel1());
         P labelP2 = getHeaderLabelPara(rsidR, rsidRpr, rsidP,
@@ -106,7 +131,8 @@ public class AbbreviatedConjugation {
             tableAdapter
                     .startRow()
                     .addColumn(0, null, null, getArabicTextP(null, passiveLine.getPassiveParticipleMasculine()))
-                    .addColumn(1, null, null, getArabicTextP(null, getMultiWord(passiveLine.getVerbalNouns())))
+                    .addColumn(1, null, null, getArabicTextP(getMultiWordUnicode(passiveLine.getVerbalNouns(),
+                            unicodeCache)))
                     .addColumn(2, null, null, getArabicTextP(null, passiveLine.getPresentPassiveTense()))
                     .addColumn(3, null, null, getArabicTextP(null, passiveLine.getPastPassiveTense()))
                     .endRow();
@@ -123,7 +149,8 @@ public class AbbreviatedConjugation {
         if (zarfLine != null) {
             tableAdapter
                     .startRow()
-                    .addColumn(0, 4, null, getArabicTextP(ZARF_PREFIX, getMultiWord(zarfLine.getAdverbs())))
+                    .addColumn(0, 4, null, getArabicTextP(unicodeCache.withPrefix(ZARF_PREFIX,
+                            getMultiWordUnicode(zarfLine.getAdverbs(), unicodeCache))))
                     .endRow();
         }
     }
@@ -134,20 +161,17 @@ public class AbbreviatedConjugation {
      * @return P
      */
     private P createTitlePara() {
-        String id = nextId();
+        String id = ids.nextId();
 
-        String bookmarkId = getBookMarkId();
+        bookmarkId = getBookMarkId(chartNumber);
         String bookmarkName = ConjugationHelper.getBookMarkName(bookmarkId);
         CTBookmark bookmarkStart = getCTBookmarkBuilder().withId(bookmarkId)
                 .withName(bookmarkName).getObject();
         JAXBElement<CTMarkupRange> bookmarkEnd = createCTMarkupRange(getCTBookmarkRangeBuilder()
                 .withId(bookmarkId).getObject());
 
-        RPr rpr = getRPrBuilder().withRFonts(RFONTS_CS)
-                .withRtl(BOOLEAN_DEFAULT_TRUE_TRUE).getObject();
-        Text text = getText(getTitleWord(sarfSagheer.getActiveLine())
-                .toUnicode(), null);
-        R r = getRBuilder().withRsidRPr(id).withRPr(rpr).addContent(text)
+        Text text = getText(unicodeCache.toUnicode(getTitleWord(sarfSagheer.getActiveLine())), null);
+        R r = getRBuilder().withRsidRPr(id).withRPr(ARABIC_CS_RTL_RPR).addContent(text)
                 .getObject();
 
         ParaRPr prpr = getParaRPrBuilder().getObject();
@@ -160,22 +184,17 @@ public class AbbreviatedConjugation {
     }
 
     private P getArabicTextP(ArabicWord prefix, ArabicSupport value) {
-        String rsidr = nextId();
-        PPr ppr = getPPrBuilder().withPStyle(ARABIC_TABLE_CENTER_STYLE)
-                .getObject();
-        RPr rpr = getRPrBuilder().withRFonts(RFONTS_CS)
-                .withRtl(BOOLEAN_DEFAULT_TRUE_TRUE).getObject();
-        ArabicWord word = value.getLabel();
-        if (prefix != null) {
-            word = ArabicWord.concatenateWithSpace(prefix, word);
-        }
-        Text text = getText(word.toUnicode(), null);
-        String id = nextId();
-        R r = getRBuilder().withRsidRPr(id).withRPr(rpr).addContent(text)
-                .getObject();
+        return getArabicTextP(unicodeCache.toUnicode(prefix, value.getLabel()));
+    }
+
+    private P getArabicTextP(String value) {
+        String rsidr = ids.nextId();
+        Text text = getText(value, null);
+        String id = ids.nextId();
+        R r = getRBuilder().withRsidRPr(id).addContent(text).getObject();
         return getPBuilder().withRsidR(rsidr).withRsidRDefault(rsidr)
-                .withRsidRPr(id).withRsidP(id).withPPr(ppr).addContent(r)
-                .getObject();
+                .withRsidRPr(id).withRsidP(id).withPPr(ARABIC_TABLE_CENTER_PPR)
+                .addContent(r).getObject();
     }
 
     public Tbl getChart() {
@@ -189,10 +208,17 @@ public class AbbreviatedConjugation {
         addPassiveLine();
         addCommandLine();
         addZarfLine();
-        addSeparatorRow(tableAdapter, 4);
+        addSeparatorRow(tableAdapter, 4, ids);
         return tableAdapter.getTable();
     }
 
+    /**
+     * @return id of the bookmark of chart title, null if title has not been created
+     */
+    public String getBookmarkId() {
+        return bookmarkId;
+    }
+
     private P getHeaderLabelPara(String rsidR, String rsidRpr, String rsidP,
                                  ArabicWord label) {
         ParaRPr prpr = getParaRPrBuilder().withSz(SIZE_32).withSzCs(SIZE_32)
@@ -200,7 +226,7 @@ public class AbbreviatedConjugation {
         PPr ppr = getPPrBuilder().withPStyle(ARABIC_NORMAL_STYLE)
                 .withBidi(BOOLEAN_DEFAULT_TRUE_TRUE).withRPr(prpr).getObject();
 
-        Text text = getText(label.toUnicode(), null);
+        Text text = getText(unicodeCache.toSharedUnicode(label), null);
         RPr rpr = getRPrBuilder().withRFonts(RFONTS_CS).withSz(SIZE_32)
                 .withSzCs(SIZE_32).getObject();
         R r = getRBuilder().withRsidR(rsidR).withRPr(rpr).addContent(text)
@@ -240,7 +266,7 @@ public class AbbreviatedConjugation {
         R r = getRBuilder().withRsidR(rsidR).withRPr(rpr).addContent(text)
                 .getObject();
 
-        String rsidRpr = nextId();
+        String rsidRpr = ids.nextId();
         return getPBuilder().withRsidR(rsidR).withRsidRDefault(rsidR)
                 .withRsidP(rsidP).withRsidRPr(rsidRpr).withPPr(ppr)
                 .addContent(r).getObject();
@@ -253,7 +279,7 @@ public class AbbreviatedConjugation {
         RPr rpr = getRPrBuilder().withRFonts(GEORGIA_FONTS).getObject();
         R r = getRBuilder().withRsidR(rsidR).withRPr(rpr).addContent(text)
                 .getObject();
-        String rsidRpr = nextId();
+        String rsidRpr = ids.nextId();
         ParaRPr prpr = getParaRPrBuilder().withRFonts(GEORGIA_FONTS)
                 .getObject();
         PPr ppr = getPPrBuilder().withJc(JC_CENTER).withRPr(prpr).getObject();
@@ -0,0 +1,84 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import org.docx4j.Docx4J;
+import org.docx4j.openpackaging.exceptions.Docx4JException;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.alphasystem.openxml.builder.OpenXmlAdapter.createNewDoc;
+
+/**
+ * Base document package shared by all generated documents.
+ * <p>
+ * The package (styles including <code>Arabic-Normal</code>, <code>Arabic-Table-Center</code>,
+ * <code>Arabic-Caption</code>, <code>Arabic-Heading1</code> and <code>TOC1</code>, theme, settings, numbering etc.) is
+ * built by {@link com.alphasystem.openxml.builder.OpenXmlAdapter#createNewDoc()} only once and kept as serialized
+ * bytes. Streaming writer copies static parts directly from these bytes, so neither in memory exports nor streamed
+ * files build or load a package. Only file conversions in package mode load a package from these bytes, which is
+ * still cheaper than building the package and loading its parts from resources for every document.
+ * </p>
+ *
+ * @author sali
+ */
+public final class BasePackage {
+
+    /**
+     * Guards creation of the base package, a lock is used instead of <code>synchronized</code> so that virtual threads
+     * waiting for the first package do not pin their carrier threads.
+     */
+    private static final ReentrantLock LOCK = new ReentrantLock();
+
+    private static volatile byte[] bytes;
+
+    private BasePackage() {
+    }
+
+    /**
+     * @return serialized base package, returned array must not be modified
+     * @throws Docx4JException if base package can not be created
+     */
+    static byte[] getBytes() throws Docx4JException {
+        byte[] result = bytes;
+        if (result == null) {
+            LOCK.lock();
+            try {
+                result = bytes;
+                if (result == null) {
+                    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                    Docx4J.save(createNewDoc(), outputStream, Docx4J.FLAG_NONE);
+                    result = outputStream.toByteArray();
+                    bytes = result;
+                }
+            } finally {
+                LOCK.unlock();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Loads a new package from the serialized base package, every part is unzipped and unmarshalled again, so this is
+     * only meant for callers which need a package to modify.
+     *
+     * @return new package, copy of the base package
+     * @throws Docx4JException if package can not be created
+     */
+    public static WordprocessingMLPackage newPackage() throws Docx4JException {
+        return WordprocessingMLPackage.load(new ByteArrayInputStream(getBytes()));
+    }
+
+    /**
+     * Builds the base package ahead of first document, e.g., during application startup.
+     *
+     * @throws Docx4JException if base package can not be created
+     */
+    public static void initialize() throws Docx4JException {
+        getBytes();
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import org.docx4j.openpackaging.exceptions.Docx4JException;
+
+/**
+ * Receives block level content (paragraphs and tables) of document body in the order it should appear in the
+ * document.
+ *
+ * @author sali
+ */
+interface BodyWriter {
+
+    /**
+     * @param content paragraph or table to be added into document body
+     * @throws Docx4JException if content can not be written
+     */
+    void write(Object content) throws Docx4JException;
+
+    /**
+     * @param xml already marshalled paragraph or table
+     * @throws Docx4JException if content can not be written
+     */
+    void writeFragment(String xml) throws Docx4JException;
+}
@@ -0,0 +1,163 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import java.io.*;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * On-disk checkpoint of rendered charts of a long running job. Each chart is stored as soon as it is rendered, keyed by
+ * the content of the chart (see {@link ChartFragmentCache#key}) or by a caller supplied key, so a restarted job with the same charts reuses the
+ * stored fragments and only renders the charts which were not completed (or failed) in the previous run.
+ * <p>
+ * Each fragment is written into a temporary file and moved into place, so a checkpoint is never left with a partially
+ * written chart. Charts without abbreviated conjugation have no content key and are not checkpointed.
+ * </p>
+ *
+ * @author sali
+ */
+public class ChartCheckpoint {
+
+    private static final String EXTENSION = ".chart";
+
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    /**
+     * Stored charts and temporary files of charts which were being stored when a previous run was killed.
+     */
+    private static final String GLOB = "*{" + EXTENSION + "," + TEMP_EXTENSION + "}";
+
+    private final Path directory;
+
+    /**
+     * @param directory directory of the checkpoint, created if it does not exist
+     * @throws IOException if directory can not be created
+     */
+    public ChartCheckpoint(File directory) throws IOException {
+        this.directory = Files.createDirectories(directory.toPath());
+    }
+
+    /**
+     * @param key key of the chart
+     * @return stored fragment, null if chart has not been completed
+     * @throws UncheckedIOException if stored fragment can not be read
+     */
+    public ChartFragment get(String key) {
+        Path path = directory.resolve(fileName(key));
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            boolean bookmarked = inputStream.readBoolean();
+            int count = inputStream.readInt();
+            List<String> tables = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = new byte[inputStream.readInt()];
+                inputStream.readFully(bytes);
+                tables.add(new String(bytes, UTF_8));
+            }
+            return ChartFragment.fromXml(tables, bookmarked);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param key      key of the chart
+     * @param fragment rendered chart
+     * @throws UncheckedIOException if fragment can not be stored
+     */
+    public void put(String key, ChartFragment fragment) {
+        String fileName = fileName(key);
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(directory, fileName, TEMP_EXTENSION);
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(tempFile)))) {
+                List<String> tables = fragment.getTables();
+                outputStream.writeBoolean(fragment.isBookmarked());
+                outputStream.writeInt(tables.size());
+                for (String table : tables) {
+                    byte[] bytes = table.getBytes(UTF_8);
+                    outputStream.writeInt(bytes.length);
+                    outputStream.write(bytes);
+                }
+            }
+            Files.move(tempFile, directory.resolve(fileName), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deletes all stored charts and temporary files, e.g., once the job has completed without failures.
+     *
+     * @throws IOException if stored charts can not be deleted
+     */
+    public void clear() throws IOException {
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, GLOB)) {
+            for (Path path : paths) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Deletes stored charts other than the given ones, e.g., charts removed from the book, and temporary files left by
+     * a previous run. Must not be called while charts are being stored.
+     *
+     * @param keys keys of the charts to keep
+     * @throws IOException if stored charts can not be deleted
+     */
+    public void retainAll(Collection<String> keys) throws IOException {
+        Set<Path> retained = new HashSet<>(keys.size() * 2);
+        for (String key : keys) {
+            retained.add(directory.resolve(fileName(key)));
+        }
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, GLOB)) {
+            for (Path path : paths) {
+                if (!retained.contains(path)) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    public File getDirectory() {
+        return directory.toFile();
+    }
+
+    private static String fileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(UTF_8));
+            StringBuilder builder = new StringBuilder(digest.length * 2 + EXTENSION.length());
+            for (byte b : digest) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.append(EXTENSION).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
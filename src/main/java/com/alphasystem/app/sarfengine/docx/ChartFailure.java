@@ -0,0 +1,51 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import com.alphasystem.app.sarfengine.conjugation.model.SarfChart;
+
+import static java.lang.String.format;
+
+/**
+ * A chart which could not be rendered, failed charts are left out of the document and can be retried on their own,
+ * e.g., <code>SarfEngine.fromStream(file, configuration, failures.stream().map(ChartFailure::getSarfChart))</code>.
+ *
+ * @author sali
+ */
+public final class ChartFailure {
+
+    private final int chartNumber;
+
+    private final SarfChart sarfChart;
+
+    private final Throwable cause;
+
+    /**
+     * @param chartNumber one based number of the chart in the document
+     * @param sarfChart   failed chart
+     * @param cause       cause of the failure
+     */
+    public ChartFailure(int chartNumber, SarfChart sarfChart, Throwable cause) {
+        this.chartNumber = chartNumber;
+        this.sarfChart = sarfChart;
+        this.cause = cause;
+    }
+
+    public int getChartNumber() {
+        return chartNumber;
+    }
+
+    public SarfChart getSarfChart() {
+        return sarfChart;
+    }
+
+    public Throwable getCause() {
+        return cause;
+    }
+
+    @Override
+    public String toString() {
+        return format("ChartFailure{chartNumber=%s, cause=%s}", chartNumber, cause);
+    }
+}
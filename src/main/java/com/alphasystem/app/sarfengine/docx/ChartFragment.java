@@ -0,0 +1,153 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import org.docx4j.XmlUtils;
+import org.docx4j.wml.Tbl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.alphasystem.app.sarfengine.docx.ConjugationHelper.getBookMarkId;
+import static com.alphasystem.app.sarfengine.docx.ConjugationHelper.getBookMarkName;
+
+/**
+ * Marshalled tables of a single chart. Bookmark of the chart title, rsids and paragraph ids are stored as placeholders
+ * so that the fragment can be reused at any position of any document with ids unique to that position (see
+ * {@link IdSequence}).
+ *
+ * @author sali
+ */
+public final class ChartFragment {
+
+    private static final String BOOKMARK_ID_TOKEN = "{{bookmarkId}}";
+
+    private static final String BOOKMARK_NAME_TOKEN = "{{bookmarkName}}";
+
+    private static final String ID_TOKEN_PREFIX = "{{id:";
+
+    private static final Pattern ID_PATTERN = Pattern.compile("(\\s(?:w14:paraId|w14:textId|w:rsid\\w*)=\")"
+            + "([0-9A-F]{8})\"");
+
+    private static final Pattern ID_TOKEN_PATTERN = Pattern.compile("\\{\\{id:(\\d+)}}");
+
+    private final List<String> tables;
+
+    private final boolean bookmarked;
+
+    private final long weight;
+
+    private ChartFragment(List<String> tables, boolean bookmarked) {
+        this.tables = Collections.unmodifiableList(tables);
+        this.bookmarked = bookmarked;
+        long weight = 0;
+        for (String table : tables) {
+            weight += table.length();
+        }
+        this.weight = weight;
+    }
+
+    /**
+     * @param tables      tables of a chart
+     * @param chartNumber one based number of the chart in the document the tables were built for
+     * @param bookmarkId  id of the bookmark of chart title, null if chart has no title
+     * @return marshalled fragment
+     */
+    public static ChartFragment of(List<Tbl> tables, int chartNumber, String bookmarkId) {
+        List<String> xmls = new ArrayList<>(tables.size());
+        for (Tbl tbl : tables) {
+            String xml = XmlUtils.marshaltoString(tbl, true, false);
+            if (bookmarkId != null) {
+                xml = xml.replace(attribute("w:name", getBookMarkName(bookmarkId)),
+                        attribute("w:name", BOOKMARK_NAME_TOKEN))
+                        .replace(attribute("w:id", bookmarkId), attribute("w:id", BOOKMARK_ID_TOKEN));
+            }
+            xmls.add(tokenizeIds(xml, chartNumber));
+        }
+        return new ChartFragment(xmls, bookmarkId != null);
+    }
+
+    /**
+     * @param tables     marshalled tables with placeholders, as returned by {@link #getTables()}
+     * @param bookmarked true if tables contain bookmark placeholders
+     * @return fragment
+     */
+    static ChartFragment fromXml(List<String> tables, boolean bookmarked) {
+        return new ChartFragment(new ArrayList<>(tables), bookmarked);
+    }
+
+    private static String attribute(String name, String value) {
+        return name + "=\"" + value + "\"";
+    }
+
+    /**
+     * Replaces ids generated for given chart with placeholders holding the offset of the id within the chart.
+     *
+     * @param xml         marshalled table
+     * @param chartNumber number of the chart the table was built for
+     * @return table with id placeholders
+     */
+    private static String tokenizeIds(String xml, int chartNumber) {
+        Matcher matcher = ID_PATTERN.matcher(xml);
+        StringBuffer buffer = new StringBuffer(xml.length());
+        while (matcher.find()) {
+            String id = matcher.group(2);
+            int offset = IdSequence.offsetOf(chartNumber, id);
+            String value = (offset < 0) ? id : ID_TOKEN_PREFIX + offset + "}}";
+            matcher.appendReplacement(buffer, Matcher.quoteReplacement(matcher.group(1) + value + "\""));
+        }
+        matcher.appendTail(buffer);
+        return buffer.toString();
+    }
+
+    private static String resolveIds(String xml, int chartNumber) {
+        if (!xml.contains(ID_TOKEN_PREFIX)) {
+            return xml;
+        }
+        Matcher matcher = ID_TOKEN_PATTERN.matcher(xml);
+        StringBuffer buffer = new StringBuffer(xml.length());
+        while (matcher.find()) {
+            matcher.appendReplacement(buffer, IdSequence.idOf(chartNumber, Integer.parseInt(matcher.group(1))));
+        }
+        matcher.appendTail(buffer);
+        return buffer.toString();
+    }
+
+    /**
+     * @param chartNumber one based number of the chart in the target document
+     * @return marshalled tables with the bookmark and ids of given position
+     */
+    public List<String> resolve(int chartNumber) {
+        String bookmarkId = getBookMarkId(chartNumber);
+        String bookmarkName = getBookMarkName(bookmarkId);
+        List<String> xmls = new ArrayList<>(tables.size());
+        for (String table : tables) {
+            String xml = bookmarked ? table.replace(BOOKMARK_NAME_TOKEN, bookmarkName)
+                    .replace(BOOKMARK_ID_TOKEN, bookmarkId) : table;
+            xmls.add(resolveIds(xml, chartNumber));
+        }
+        return xmls;
+    }
+
+    /**
+     * @return marshalled tables with placeholders
+     */
+    List<String> getTables() {
+        return tables;
+    }
+
+    public boolean isBookmarked() {
+        return bookmarked;
+    }
+
+    /**
+     * @return approximate size of this fragment in characters
+     */
+    public long getWeight() {
+        return weight;
+    }
+}
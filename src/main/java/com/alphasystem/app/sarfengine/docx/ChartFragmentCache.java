@@ -0,0 +1,232 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import com.alphasystem.app.sarfengine.conjugation.model.ConjugationHeader;
+import com.alphasystem.app.sarfengine.conjugation.model.SarfChart;
+import com.alphasystem.app.sarfengine.conjugation.model.SarfSagheer;
+import com.alphasystem.app.sarfengine.conjugation.model.sarfsagheer.ActiveLine;
+import com.alphasystem.app.sarfengine.conjugation.model.sarfsagheer.AdverbLine;
+import com.alphasystem.app.sarfengine.conjugation.model.sarfsagheer.ImperativeAndForbiddingLine;
+import com.alphasystem.app.sarfengine.conjugation.model.sarfsagheer.PassiveLine;
+import com.alphasystem.arabic.model.ArabicLetterType;
+import com.alphasystem.arabic.model.ArabicSupport;
+import com.alphasystem.arabic.model.ArabicWord;
+import com.alphasystem.sarfengine.xml.model.ChartConfiguration;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Size bounded LRU cache of marshalled chart tables, shared by many documents so that charts appearing in multiple
+ * books are built and marshalled only once. Cache is only used by engines in streaming mode, where cached fragments are
+ * written into the document as they are.
+ * <p>
+ * Cache keys are derived from the content of the chart, i.e., root letters, translation, header labels (which identify
+ * the template) and all forms of abbreviated conjugation (which reflect template, root letters, rule processing,
+ * passive line, verbal nouns and adverbs), plus the configuration flags affecting the rendered tables.
+ * </p>
+ *
+ * @author sali
+ */
+public class ChartFragmentCache {
+
+    private static final char SEPARATOR = '\u0000';
+
+    private final long maxWeight;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LinkedHashMap<String, ChartFragment> fragments = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private long weight;
+
+    /**
+     * @param maxWeight maximum total size of cached fragments in characters
+     */
+    public ChartFragmentCache(long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be greater than zero");
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * @param sarfChart     chart
+     * @param configuration configuration used to render the chart
+     * @return cache key of given chart, null if chart can not be cached (chart without abbreviated conjugation)
+     */
+    public static String key(SarfChart sarfChart, ChartConfiguration configuration) {
+        SarfSagheer sarfSagheer = sarfChart.getSarfSagheer();
+        if (sarfSagheer == null) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder(256);
+        builder.append(configuration.isOmitAbbreviatedConjugation() ? '1' : '0')
+                .append(configuration.isOmitDetailedConjugation() || sarfChart.getSarfKabeer() == null ? '1' : '0')
+                .append(configuration.isOmitTitle() ? '1' : '0')
+                .append(configuration.isOmitHeader() ? '1' : '0');
+        ConjugationHeader header = sarfChart.getChartTitle();
+        if (header != null) {
+            ArabicLetterType[] rootLetters = header.getRootLetters();
+            if (rootLetters != null) {
+                for (ArabicLetterType rootLetter : rootLetters) {
+                    append(builder, rootLetter == null ? null : rootLetter.name());
+                }
+            }
+            append(builder, header.getTranslation());
+            append(builder, header.getTypeLabel1());
+            append(builder, header.getTypeLabel2());
+            append(builder, header.getTypeLabel3());
+        }
+        ActiveLine activeLine = sarfSagheer.getActiveLine();
+        if (activeLine != null) {
+            append(builder, activeLine.getPastTense());
+            append(builder, activeLine.getPresentTense());
+            append(builder, activeLine.getActiveParticipleMasculine());
+            append(builder, activeLine.getVerbalNouns());
+        }
+        PassiveLine passiveLine = sarfSagheer.getPassiveLine();
+        if (passiveLine != null) {
+            append(builder, passiveLine.getPastPassiveTense());
+            append(builder, passiveLine.getPresentPassiveTense());
+            append(builder, passiveLine.getPassiveParticipleMasculine());
+            append(builder, passiveLine.getVerbalNouns());
+        }
+        ImperativeAndForbiddingLine commandLine = sarfSagheer.getImperativeAndForbiddingLine();
+        if (commandLine != null) {
+            append(builder, commandLine.getImperative());
+            append(builder, commandLine.getForbidding());
+        }
+        AdverbLine adverbLine = sarfSagheer.getAdverbLine();
+        if (adverbLine != null) {
+            append(builder, adverbLine.getAdverbs());
+        }
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, String value) {
+        builder.append(SEPARATOR);
+        if (value != null) {
+            builder.append(value);
+        }
+    }
+
+    private static void append(StringBuilder builder, ArabicWord value) {
+        append(builder, value == null ? null : value.toUnicode());
+    }
+
+    private static void append(StringBuilder builder, ArabicSupport value) {
+        append(builder, value == null ? null : value.getLabel());
+    }
+
+    private static void append(StringBuilder builder, ArabicSupport[] values) {
+        builder.append(SEPARATOR).append('[');
+        if (values != null) {
+            for (ArabicSupport value : values) {
+                append(builder, value);
+            }
+        }
+        builder.append(']');
+    }
+
+    /**
+     * @param key cache key
+     * @return cached fragment, null if not found
+     */
+    public ChartFragment get(String key) {
+        ChartFragment fragment;
+        lock.lock();
+        try {
+            fragment = fragments.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (fragment == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return fragment;
+    }
+
+    /**
+     * Adds given fragment, least recently used fragments are evicted until total size is within limit. Fragments
+     * larger than the limit are not cached.
+     *
+     * @param key      cache key
+     * @param fragment fragment to cache
+     */
+    public void put(String key, ChartFragment fragment) {
+        long fragmentWeight = fragment.getWeight();
+        if (fragmentWeight > maxWeight) {
+            return;
+        }
+        lock.lock();
+        try {
+            ChartFragment previous = fragments.put(key, fragment);
+            if (previous != null) {
+                weight -= previous.getWeight();
+            }
+            weight += fragmentWeight;
+            Iterator<Map.Entry<String, ChartFragment>> iterator = fragments.entrySet().iterator();
+            while (weight > maxWeight && iterator.hasNext()) {
+                weight -= iterator.next().getValue().getWeight();
+                iterator.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            fragments.clear();
+            weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return fragments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return total size of cached fragments in characters
+     */
+    public long getWeight() {
+        lock.lock();
+        try {
+            return weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+}
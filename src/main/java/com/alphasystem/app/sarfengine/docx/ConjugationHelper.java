@@ -8,6 +8,7 @@ import com.alphasystem.app.sarfengine.conjugation.model.SarfKabeer;
 import com.alphasystem.app.sarfengine.conjugation.model.SarfKabeerPair;
 import com.alphasystem.app.sarfengine.conjugation.model.SarfTerm;
 import com.alphasystem.app.sarfengine.conjugation.model.sarfsagheer.ActiveLine;
+import com.alphasystem.arabic.model.ArabicLetter;
 import com.alphasystem.arabic.model.ArabicSupport;
 import com.alphasystem.arabic.model.ArabicWord;
 import com.alphasystem.openxml.builder.TableAdapter;
@@ -28,7 +29,6 @@ import static com.alphasystem.openxml.builder.OpenXmlAdapter.getHpsMeasure;
 import static com.alphasystem.openxml.builder.OpenXmlAdapter.getPStyle;
 import static com.alphasystem.openxml.builder.OpenXmlBuilderFactory.*;
 import static com.alphasystem.util.IdGenerator.nextId;
-import static java.lang.String.format;
 import static org.apache.commons.lang3.ArrayUtils.isEmpty;
 import static org.docx4j.wml.STBorder.NIL;
 import static org.docx4j.wml.STHint.CS;
@@ -65,6 +65,20 @@ public class ConjugationHelper {
 
     public static final PStyle ARABIC_TOC_STYLE = getPStyle("TOC1");
 
+    /*
+     * Paragraph and run properties shared by all cells of all charts, right to left and complex script hint of table
+     * cells are defined by "Arabic-Table-Center" style. These instances must not be modified.
+     */
+
+    public static final PPr ARABIC_TABLE_CENTER_PPR = getPPrBuilder().withPStyle(ARABIC_TABLE_CENTER_STYLE).getObject();
+
+    public static final PPr ARABIC_CAPTION_PPR = getPPrBuilder().withPStyle(ARABIC_CAPTION_STYLE).getObject();
+
+    public static final PPr NO_SPACING_PPR = getPPrBuilder().withPStyle(NO_SPACING_STYLE).getObject();
+
+    public static final RPr ARABIC_CS_RTL_RPR = getRPrBuilder().withRFonts(RFONTS_CS)
+            .withRtl(BOOLEAN_DEFAULT_TRUE_TRUE).getObject();
+
     public static final ArabicWord COMMAND_PREFIX = getWord(ALIF, LAM,
             ALIF_HAMZA_ABOVE, MEEM, RA, SPACE, MEEM, NOON, HA);
 
@@ -76,31 +90,93 @@ public class ConjugationHelper {
 
     public static final String BOOKMARK_NAME_PREFIX = "bm";
 
+    /**
+     * @deprecated bookmark ids are derived from the chart number, see {@link #getBookMarkId(int)}
+     */
+    @Deprecated
     public static final AtomicInteger BOOKMARK_COUNT = new AtomicInteger(0);
 
+    /**
+     * Letters inserted between two words by {@link ArabicWord#concatenateWithAnd}, derived once so that multi words
+     * can be built in a single pass.
+     */
+    private static final ArabicLetter[] AND_SEPARATOR;
+
+    /**
+     * Unicode of {@link #AND_SEPARATOR}.
+     */
+    private static final String AND_SEPARATOR_UNICODE;
+
+    static {
+        ArabicLetter[] letters = concatenateWithAnd(getWord(ALIF), getWord(ALIF)).getLetters();
+        AND_SEPARATOR = new ArabicLetter[letters.length - 2];
+        System.arraycopy(letters, 1, AND_SEPARATOR, 0, AND_SEPARATOR.length);
+        String alif = getWord(ALIF).toUnicode();
+        String joined = concatenateWithAnd(getWord(ALIF), getWord(ALIF)).toUnicode();
+        AND_SEPARATOR_UNICODE = joined.substring(alif.length(), joined.length() - alif.length());
+    }
+
+    /**
+     * Add empty separator row.
+     */
+    public static void addSeparatorRow(TableAdapter tableAdapter,
+                                       Integer gridSpan, IdSequence ids) {
+        addSeparatorRow(tableAdapter, gridSpan, createNoSpacingStyleP(ids));
+    }
+
     /**
      * Add empty separator row.
+     *
+     * @deprecated ids are not scoped to a document, use {@link #addSeparatorRow(TableAdapter, Integer, IdSequence)}
      */
+    @Deprecated
     public static void addSeparatorRow(TableAdapter tableAdapter,
                                        Integer gridSpan) {
-        tableAdapter.startRow()
-                .addColumn(0, gridSpan, NIL_BORDERS, createNoSpacingStyleP())
-                .endRow();
+        addSeparatorRow(tableAdapter, gridSpan, createNoSpacingStyleP());
+    }
+
+    private static void addSeparatorRow(TableAdapter tableAdapter, Integer gridSpan, P p) {
+        tableAdapter.startRow().addColumn(0, gridSpan, NIL_BORDERS, p).endRow();
     }
 
+    public static P createNoSpacingStyleP(IdSequence ids) {
+        return createNoSpacingStyleP(ids.nextId(), ids.nextId(), ids.nextId());
+    }
+
+    /**
+     * @deprecated ids are not scoped to a document, use {@link #createNoSpacingStyleP(IdSequence)}
+     */
+    @Deprecated
     public static P createNoSpacingStyleP() {
-        PPr ppr = getPPrBuilder().withPStyle(NO_SPACING_STYLE).getObject();
-        P p = getPBuilder().withRsidR(nextId()).withRsidP(nextId())
-                .withRsidRDefault(nextId()).withPPr(ppr).getObject();
-        return p;
+        return createNoSpacingStyleP(nextId(), nextId(), nextId());
+    }
+
+    private static P createNoSpacingStyleP(String rsidR, String rsidP, String rsidRDefault) {
+        return getPBuilder().withRsidR(rsidR).withRsidP(rsidP).withRsidRDefault(rsidRDefault)
+                .withPPr(NO_SPACING_PPR).getObject();
     }
 
+    /**
+     * Bookmark ids are scoped to a document and derived from the number of the chart within document.
+     *
+     * @param chartNumber one based number of chart in the document
+     * @return bookmark id
+     */
+    public static String getBookMarkId(int chartNumber) {
+        return Integer.toString(chartNumber);
+    }
+
+    /**
+     * @return next bookmark id of a counter shared by all documents
+     * @deprecated bookmark ids are scoped to a document, use {@link #getBookMarkId(int)}
+     */
+    @Deprecated
     public static String getBookMarkId() {
-        return format("%s", BOOKMARK_COUNT.incrementAndGet());
+        return getBookMarkId(BOOKMARK_COUNT.incrementAndGet());
     }
 
     public static String getBookMarkName(String id) {
-        return format("%s_%s", BOOKMARK_NAME_PREFIX, id);
+        return BOOKMARK_NAME_PREFIX + "_" + id;
     }
 
     public static List<SarfTerm> fromSarfKabeer(SarfKabeer sarfKabeer) {
@@ -117,15 +193,75 @@ public class ConjugationHelper {
         return sarfTerms;
     }
 
+    /**
+     * Number of terms {@link #fromSarfKabeer(SarfKabeer)} returns for given conjugation, counted from its pairs without
+     * creating any term.
+     *
+     * @param sarfKabeer detailed conjugation
+     * @return number of terms of given conjugation
+     */
+    public static int countTerms(SarfKabeer sarfKabeer) {
+        if (sarfKabeer == null) {
+            return 0;
+        }
+        int pairs = countPairs(sarfKabeer.getActiveTensePair()) + countPairs(sarfKabeer.getVerbalNounPairs())
+                + countPairs(sarfKabeer.getActiveParticiplePair()) + countPairs(sarfKabeer.getPassiveTensePair())
+                + countPairs(sarfKabeer.getPassiveParticiplePair())
+                + countPairs(sarfKabeer.getImperativeAndForbiddingPair()) + countPairs(sarfKabeer.getAdverbPairs());
+        // each pair is loaded as its right side and left side terms
+        return pairs * 2;
+    }
+
+    private static int countPairs(SarfKabeerPair pair) {
+        return (pair == null) ? 0 : 1;
+    }
+
+    private static int countPairs(SarfKabeerPair[] pairs) {
+        int count = 0;
+        if (pairs != null) {
+            for (SarfKabeerPair pair : pairs) {
+                count += countPairs(pair);
+            }
+        }
+        return count;
+    }
+
     public static ArabicWord getMultiWord(ArabicWord[] words) {
-        ArabicWord w = WORD_SPACE;
-        if (!isEmpty(words)) {
-            w = words[0];
-            for (int i = 1; i < words.length; i++) {
-                w = concatenateWithAnd(w, words[i]);
+        if (isEmpty(words)) {
+            return WORD_SPACE;
+        }
+        ArabicLetter[][] parts = new ArabicLetter[words.length][];
+        ArabicWord single = null;
+        int count = 0;
+        for (ArabicWord word : words) {
+            if (word != null) {
+                single = word;
+                parts[count++] = word.getLetters();
             }
         }
-        return w;
+        return joinWithAnd(parts, count, single);
+    }
+
+    /**
+     * Unicode of {@link #getMultiWord(ArabicWord[])}, joined directly from the Unicode of each word without building
+     * the joined word.
+     *
+     * @param words        words to join
+     * @param unicodeCache Unicode cache of the document
+     * @return Unicode of joined words
+     */
+    public static String getMultiWordUnicode(ArabicWord[] words, UnicodeCache unicodeCache) {
+        if (isEmpty(words)) {
+            return UnicodeCache.WORD_SPACE_UNICODE;
+        }
+        String[] parts = new String[words.length];
+        int count = 0;
+        for (ArabicWord word : words) {
+            if (word != null) {
+                parts[count++] = unicodeCache.toUnicode(word);
+            }
+        }
+        return joinWithAnd(parts, count);
     }
 
     /**
@@ -209,25 +345,98 @@ public class ConjugationHelper {
     }
 
     public static ArabicWord getMultiWord(RootWord[] rootWords) {
-        int length = isEmpty(rootWords) ? 0 : rootWords.length;
-        ArabicWord[] words = new ArabicWord[length];
-        if (length > 0) {
-            for (int i = 0; i < length; i++) {
-                RootWord rootWord = rootWords[i];
-                words[i] = (rootWord == null) ? null : rootWord.getRootWord();
+        if (isEmpty(rootWords)) {
+            return WORD_SPACE;
+        }
+        ArabicLetter[][] parts = new ArabicLetter[rootWords.length][];
+        ArabicWord single = null;
+        int count = 0;
+        for (RootWord rootWord : rootWords) {
+            ArabicWord word = (rootWord == null) ? null : rootWord.getRootWord();
+            if (word != null) {
+                single = word;
+                parts[count++] = word.getLetters();
             }
         }
-        ArabicWord w = WORD_SPACE;
-        if (!isEmpty(words)) {
-            w = words[0];
-            for (int i = 1; i < words.length; i++) {
-                ArabicWord word = words[i];
-                if (word == null) {
-                    continue;
-                }
-                w = concatenateWithAnd(w, word);
+        return joinWithAnd(parts, count, single);
+    }
+
+    /**
+     * Unicode of {@link #getMultiWord(RootWord[])}, joined directly from the Unicode of each word without building the
+     * joined word.
+     *
+     * @param rootWords    words to join
+     * @param unicodeCache Unicode cache of the document
+     * @return Unicode of joined words
+     */
+    public static String getMultiWordUnicode(RootWord[] rootWords, UnicodeCache unicodeCache) {
+        if (isEmpty(rootWords)) {
+            return UnicodeCache.WORD_SPACE_UNICODE;
+        }
+        String[] parts = new String[rootWords.length];
+        int count = 0;
+        for (RootWord rootWord : rootWords) {
+            ArabicWord word = (rootWord == null) ? null : rootWord.getRootWord();
+            if (word != null) {
+                parts[count++] = unicodeCache.toUnicode(word);
+            }
+        }
+        return joinWithAnd(parts, count);
+    }
+
+    /**
+     * Joins letters of given words with "and" separator in a single pass, letters are copied exactly once.
+     *
+     * @param parts  letters of each word, only first <code>count</code> elements are used
+     * @param count  number of words
+     * @param single last word, returned as it is if there is only one word
+     * @return joined word, <code>WORD_SPACE</code> if there is nothing to join
+     */
+    private static ArabicWord joinWithAnd(ArabicLetter[][] parts, int count, ArabicWord single) {
+        if (count == 0) {
+            return WORD_SPACE;
+        }
+        if (count == 1) {
+            return single;
+        }
+        int length = (count - 1) * AND_SEPARATOR.length;
+        for (int i = 0; i < count; i++) {
+            length += parts[i].length;
+        }
+        ArabicLetter[] letters = new ArabicLetter[length];
+        int index = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                System.arraycopy(AND_SEPARATOR, 0, letters, index, AND_SEPARATOR.length);
+                index += AND_SEPARATOR.length;
             }
+            System.arraycopy(parts[i], 0, letters, index, parts[i].length);
+            index += parts[i].length;
+        }
+        return getWord(letters);
+    }
+
+    /**
+     * @param parts Unicode of each word, only first <code>count</code> elements are used
+     * @param count number of words
+     * @return Unicode of words joined with "and" separator, Unicode of <code>WORD_SPACE</code> if there is nothing to
+     * join
+     */
+    private static String joinWithAnd(String[] parts, int count) {
+        if (count == 0) {
+            return UnicodeCache.WORD_SPACE_UNICODE;
+        }
+        if (count == 1) {
+            return parts[0];
+        }
+        int length = (count - 1) * AND_SEPARATOR_UNICODE.length();
+        for (int i = 0; i < count; i++) {
+            length += parts[i].length();
+        }
+        StringBuilder builder = new StringBuilder(length).append(parts[0]);
+        for (int i = 1; i < count; i++) {
+            builder.append(AND_SEPARATOR_UNICODE).append(parts[i]);
         }
-        return w;
+        return builder.toString();
     }
 }
@@ -0,0 +1,59 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import com.alphasystem.sarfengine.xml.model.ChartConfiguration;
+import com.alphasystem.sarfengine.xml.model.ConjugationTemplate;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.transform.stream.StreamSource;
+import java.io.File;
+
+/**
+ * Reads {@link ConjugationTemplate} and {@link ChartConfiguration} XML files. JAXB context of the template model is
+ * created on first read.
+ *
+ * @author sali
+ */
+public final class ConjugationTemplateReader {
+
+    private static final class ContextHolder {
+
+        private static final JAXBContext CONTEXT = createContext();
+
+        private static JAXBContext createContext() {
+            try {
+                return JAXBContext.newInstance(ConjugationTemplate.class, ChartConfiguration.class);
+            } catch (JAXBException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private ConjugationTemplateReader() {
+    }
+
+    /**
+     * @param file template file
+     * @return template
+     * @throws JAXBException if file can not be read
+     */
+    public static ConjugationTemplate read(File file) throws JAXBException {
+        return read(file, ConjugationTemplate.class);
+    }
+
+    /**
+     * @param file chart configuration file
+     * @return chart configuration
+     * @throws JAXBException if file can not be read
+     */
+    public static ChartConfiguration readChartConfiguration(File file) throws JAXBException {
+        return read(file, ChartConfiguration.class);
+    }
+
+    private static <T> T read(File file, Class<T> type) throws JAXBException {
+        return ContextHolder.CONTEXT.createUnmarshaller().unmarshal(new StreamSource(file), type).getValue();
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+/**
+ * Receives timings and counters of the rendering pipeline. Implementations must be thread safe, in parallel mode
+ * methods are called from multiple threads.
+ *
+ * @author sali
+ * @see ConversionMetrics
+ */
+public interface ConversionListener {
+
+    /**
+     * Listener which ignores all events.
+     */
+    ConversionListener NO_OP = new ConversionListener() {
+    };
+
+    /**
+     * @param stage         completed stage
+     * @param durationNanos time spent in the stage
+     */
+    default void stageCompleted(ConversionStage stage, long durationNanos) {
+    }
+
+    /**
+     * @param rows  number of table rows emitted for a chart
+     * @param cells number of table cells emitted for a chart
+     */
+    default void chartRendered(int rows, int cells) {
+    }
+
+    /**
+     * @param failure failed chart, chart is left out of the document
+     */
+    default void chartFailed(ChartFailure failure) {
+    }
+
+    /**
+     * @param chartCount    number of charts in the document
+     * @param bytes         size of the document
+     * @param durationNanos total time spent to produce the document
+     */
+    default void documentWritten(int chartCount, long bytes, long durationNanos) {
+    }
+}
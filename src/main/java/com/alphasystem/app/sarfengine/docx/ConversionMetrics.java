@@ -0,0 +1,131 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * In-process collector of {@link ConversionListener} events, values are accumulated since creation or last
+ * {@link #reset()} and can be read at any time to export them into a monitoring system.
+ *
+ * @author sali
+ */
+public class ConversionMetrics implements ConversionListener {
+
+    private final Map<ConversionStage, LongAdder> stageDurations = new EnumMap<>(ConversionStage.class);
+
+    private final Map<ConversionStage, LongAdder> stageCounts = new EnumMap<>(ConversionStage.class);
+
+    private final LongAdder rows = new LongAdder();
+
+    private final LongAdder cells = new LongAdder();
+
+    private final LongAdder charts = new LongAdder();
+
+    private final LongAdder documents = new LongAdder();
+
+    private final LongAdder bytes = new LongAdder();
+
+    private final LongAdder documentDuration = new LongAdder();
+
+    public ConversionMetrics() {
+        for (ConversionStage stage : ConversionStage.values()) {
+            stageDurations.put(stage, new LongAdder());
+            stageCounts.put(stage, new LongAdder());
+        }
+    }
+
+    @Override
+    public void stageCompleted(ConversionStage stage, long durationNanos) {
+        stageDurations.get(stage).add(durationNanos);
+        stageCounts.get(stage).increment();
+    }
+
+    @Override
+    public void chartRendered(int rows, int cells) {
+        this.rows.add(rows);
+        this.cells.add(cells);
+    }
+
+    @Override
+    public void documentWritten(int chartCount, long bytes, long durationNanos) {
+        charts.add(chartCount);
+        documents.increment();
+        this.bytes.add(bytes);
+        documentDuration.add(durationNanos);
+    }
+
+    /**
+     * @param stage stage
+     * @return total time spent in given stage in nanoseconds
+     */
+    public long getStageDuration(ConversionStage stage) {
+        return stageDurations.get(stage).sum();
+    }
+
+    /**
+     * @param stage stage
+     * @return number of times given stage has been completed
+     */
+    public long getStageCount(ConversionStage stage) {
+        return stageCounts.get(stage).sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getCells() {
+        return cells.sum();
+    }
+
+    public long getCharts() {
+        return charts.sum();
+    }
+
+    public long getDocuments() {
+        return documents.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * @return number of charts written per second of document generation time
+     */
+    public double getChartsPerSecond() {
+        long duration = documentDuration.sum();
+        return (duration == 0) ? 0 : charts.sum() * (double) SECONDS.toNanos(1) / duration;
+    }
+
+    public void reset() {
+        for (ConversionStage stage : ConversionStage.values()) {
+            stageDurations.get(stage).reset();
+            stageCounts.get(stage).reset();
+        }
+        rows.reset();
+        cells.reset();
+        charts.reset();
+        documents.reset();
+        bytes.reset();
+        documentDuration.reset();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (ConversionStage stage : ConversionStage.values()) {
+            builder.append(format("%s=%sms, ", stage, NANOSECONDS.toMillis(getStageDuration(stage))));
+        }
+        return builder.append(format("documents=%s, charts=%s, chartsPerSecond=%.2f, rows=%s, cells=%s, bytes=%s",
+                getDocuments(), getCharts(), getChartsPerSecond(), getRows(), getCells(), getBytes())).toString();
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+/**
+ * Stages of the rendering pipeline reported to {@link ConversionListener}.
+ *
+ * @author sali
+ */
+public enum ConversionStage {
+
+    /**
+     * Conjugation of a single entry in {@link SarfEngineHelper}.
+     */
+    CONJUGATION,
+
+    /**
+     * Sorting of charts of a document job.
+     */
+    SORTING,
+
+    /**
+     * Building of tables of a single chart.
+     */
+    TABLE_BUILDING,
+
+    /**
+     * Marshalling of a single paragraph or table in streaming mode.
+     */
+    MARSHALLING,
+
+    /**
+     * Saving of the package, includes marshalling of the whole document when not in streaming mode and zip
+     * compression.
+     */
+    SAVE
+}
@@ -8,32 +8,48 @@ import com.alphasystem.app.sarfengine.conjugation.model.SarfTerm;
 import com.alphasystem.arabic.model.ArabicWord;
 import com.alphasystem.openxml.builder.TableAdapter;
 import org.docx4j.wml.*;
-import org.docx4j.wml.PPrBase.PStyle;
 import org.docx4j.wml.TcPrInner.TcBorders;
 
 import java.util.List;
 
 import static com.alphasystem.app.sarfengine.docx.ConjugationHelper.*;
-import static com.alphasystem.arabic.model.ArabicLetters.WORD_SPACE;
 import static com.alphasystem.openxml.builder.OpenXmlAdapter.getText;
 import static com.alphasystem.openxml.builder.OpenXmlBuilderFactory.*;
-import static com.alphasystem.util.IdGenerator.nextId;
-import static org.apache.commons.lang3.ArrayUtils.subarray;
 
 /**
  * @author sali
  */
 public class DetailedConjugation {
 
+    /**
+     * Number of values in each half of a conjugation row.
+     */
+    private static final int VALUES_PER_ROW = 3;
+
     private final List<SarfTerm> sarfTerms;
 
     private final TableAdapter tableAdapter;
 
+    private final IdSequence ids;
+
+    private final UnicodeCache unicodeCache;
+
     /**
      * @param sarfTerms
      */
     public DetailedConjugation(List<SarfTerm> sarfTerms) {
+        this(sarfTerms, new IdSequence(), new UnicodeCache());
+    }
+
+    /**
+     * @param sarfTerms
+     * @param ids          id sequence of the chart
+     * @param unicodeCache Unicode cache of the document
+     */
+    public DetailedConjugation(List<SarfTerm> sarfTerms, IdSequence ids, UnicodeCache unicodeCache) {
         this.sarfTerms = sarfTerms;
+        this.ids = ids;
+        this.unicodeCache = unicodeCache;
         tableAdapter = new TableAdapter(7)
                 .setColumnsWidth(new int[]{0, 1, 2, 4, 5, 6}, 16.24)
                 .setColumnWidth(3, 2.56).startTable();
@@ -43,39 +59,65 @@ public class DetailedConjugation {
         this(fromSarfKabeer(sarfKabeer));
     }
 
+    public DetailedConjugation(SarfKabeer sarfKabeer, IdSequence ids, UnicodeCache unicodeCache) {
+        this(fromSarfKabeer(sarfKabeer), ids, unicodeCache);
+    }
+
     private void addCaptionRow(ArabicWord rightSideCaption,
                                ArabicWord leftSideCaption, boolean noBorder) {
         tableAdapter
                 .startRow()
                 .addColumn(0, 3, noBorder ? NIL_BORDERS : null,
-                        getArabicTermP(rightSideCaption, ARABIC_CAPTION_STYLE))
-                .addColumn(3, null, NIL_BORDERS, createNoSpacingStyleP())
+                        getArabicTermP(unicodeCache.toSharedUnicode(rightSideCaption), ARABIC_CAPTION_PPR))
+                .addColumn(3, null, NIL_BORDERS, createNoSpacingStyleP(ids))
                 .addColumn(4, 3, null,
-                        getArabicTermP(leftSideCaption, ARABIC_CAPTION_STYLE))
+                        getArabicTermP(unicodeCache.toSharedUnicode(leftSideCaption), ARABIC_CAPTION_PPR))
                 .endRow();
     }
 
+    /**
+     * Adds a row of up to three values of each side starting at given index, values are read in place.
+     *
+     * @param rightSideValues values of right side, null if right side is empty
+     * @param leftSideValues  values of left side
+     * @param fromIndex       index of first value of the row
+     * @param noBorder        true if right side is empty
+     */
     private void addConjugationRow(ArabicWord[] rightSideValues,
-                                   ArabicWord[] leftSideValues, boolean noBorder) {
+                                   ArabicWord[] leftSideValues, int fromIndex, boolean noBorder) {
         tableAdapter.startRow();
         int columnIndex = 0;
-        for (int i = 0; i < rightSideValues.length; i++) {
-            TcBorders borders = noBorder ? NIL_BORDERS : null;
-            P p = getArabicTermP(rightSideValues[i], ARABIC_TABLE_CENTER_STYLE);
+        TcBorders borders = noBorder ? NIL_BORDERS : null;
+        int rightSideCount = (rightSideValues == null) ? VALUES_PER_ROW
+                : valueCount(rightSideValues, fromIndex);
+        for (int i = 0; i < rightSideCount; i++) {
+            ArabicWord value = (rightSideValues == null) ? null : rightSideValues[fromIndex + i];
+            P p = getArabicTermP(unicodeCache.toUnicode(value), ARABIC_TABLE_CENTER_PPR);
             tableAdapter.addColumn(columnIndex, 1, borders, p);
             columnIndex++;
         }
         tableAdapter.addColumn(columnIndex, 1, NIL_BORDERS,
-                createNoSpacingStyleP());
+                createNoSpacingStyleP(ids));
         columnIndex++;
-        for (int i = 0; i < leftSideValues.length; i++) {
-            P p = getArabicTermP(leftSideValues[i], ARABIC_TABLE_CENTER_STYLE);
+        int leftSideCount = valueCount(leftSideValues, fromIndex);
+        for (int i = 0; i < leftSideCount; i++) {
+            P p = getArabicTermP(unicodeCache.toUnicode(leftSideValues[fromIndex + i]),
+                    ARABIC_TABLE_CENTER_PPR);
             tableAdapter.addColumn(columnIndex, 1, null, p);
             columnIndex++;
         }
         tableAdapter.endRow();
     }
 
+    /**
+     * @param values    values of a term
+     * @param fromIndex index of first value of the row
+     * @return number of values of the row, at most three
+     */
+    private static int valueCount(ArabicWord[] values, int fromIndex) {
+        return Math.max(0, Math.min(VALUES_PER_ROW, values.length - fromIndex));
+    }
+
     /**
      * @param rightSideTerm
      * @param leftSideTerm
@@ -93,33 +135,25 @@ public class DetailedConjugation {
                 .getValues();
         ArabicWord[] leftSideValues = leftSideTerm.getValues();
 
-        int fromIndex = 0;
-        int toIndex = 3;
-        while (fromIndex < leftSideValues.length) {
-            ArabicWord[] rightSideSubValues = noBorder ? new ArabicWord[3]
-                    : subarray(rightSideValues, fromIndex, toIndex);
-            ArabicWord[] leftSideSubValues = subarray(leftSideValues,
-                    fromIndex, toIndex);
-            addConjugationRow(rightSideSubValues, leftSideSubValues, noBorder);
-            fromIndex = toIndex;
-            toIndex += 3;
+        for (int fromIndex = 0; fromIndex < leftSideValues.length; fromIndex += VALUES_PER_ROW) {
+            addConjugationRow(rightSideValues, leftSideValues, fromIndex, noBorder);
         }
 
-        addSeparatorRow(tableAdapter, 7);
+        addSeparatorRow(tableAdapter, 7, ids);
     }
 
-    private P getArabicTermP(ArabicWord arabicWord, PStyle style) {
-        PPr ppr = getPPrBuilder().withPStyle(style).getObject();
-
-        RPr rpr = getRPrBuilder().withRFonts(RFONTS_CS)
-                .withRtl(BOOLEAN_DEFAULT_TRUE_TRUE).getObject();
-        String value = arabicWord == null ? WORD_SPACE.toUnicode() : arabicWord
-                .toUnicode();
+    /**
+     * @param value Unicode of the cell
+     * @param ppr   shared paragraph properties, run properties are inherited from paragraph style
+     * @return
+     */
+    private P getArabicTermP(String value, PPr ppr) {
+        // each cell gets its own text node, only the string is shared
         Text text = getText(value, null);
-        String rsid = nextId();
-        R r = getRBuilder().withRsidRPr(rsid).withRPr(rpr).addContent(text)
+        String rsid = ids.nextId();
+        R r = getRBuilder().withRsidRPr(rsid).addContent(text)
                 .getObject();
-        String id = nextId();
+        String id = ids.nextId();
         return getPBuilder().withRsidR(id).withRsidRDefault(id).withRsidP(rsid)
                 .withRsidRPr(rsid).withPPr(ppr).addContent(r).getObject();
     }
@@ -128,16 +162,12 @@ public class DetailedConjugation {
      * @return table containing detail conjugation (Sarf Kabeer)
      */
     public Tbl getChart() {
-        int fromIndex = 0;
-        int toIndex = 2;
-        while (fromIndex < sarfTerms.size()) {
-            List<SarfTerm> subList = sarfTerms.subList(fromIndex, toIndex);
-            addConjugationRows(subList.get(1), subList.get(0));
-            fromIndex = toIndex;
-            toIndex += 2;
+        int size = sarfTerms.size();
+        for (int index = 0; index < size; index += 2) {
+            addConjugationRows(sarfTerms.get(index + 1), sarfTerms.get(index));
         }
 
-        addSeparatorRow(tableAdapter, 7);
+        addSeparatorRow(tableAdapter, 7, ids);
 
         return tableAdapter.getTable();
     }
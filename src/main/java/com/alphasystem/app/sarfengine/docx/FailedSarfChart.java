@@ -0,0 +1,33 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import com.alphasystem.app.sarfengine.conjugation.model.ConjugationHeader;
+import com.alphasystem.app.sarfengine.conjugation.model.SarfChart;
+import com.alphasystem.app.sarfengine.conjugation.model.SarfKabeer;
+import com.alphasystem.app.sarfengine.conjugation.model.SarfSagheer;
+
+/**
+ * Place holder of a chart whose conjugation failed in a pipeline stage, the engine reports it as a {@link ChartFailure}
+ * with the original cause instead of aborting the whole document. The chart carries no content, so it can not be
+ * retried from the failure itself; the entry has to be conjugated again.
+ *
+ * @author sali
+ */
+final class FailedSarfChart extends SarfChart {
+
+    private final RuntimeException cause;
+
+    /**
+     * @param cause failure of conjugation
+     */
+    FailedSarfChart(RuntimeException cause) {
+        super((ConjugationHeader) null, (SarfSagheer) null, (SarfKabeer) null);
+        this.cause = cause;
+    }
+
+    RuntimeException getCause() {
+        return cause;
+    }
+}
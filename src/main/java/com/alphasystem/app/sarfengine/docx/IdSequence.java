@@ -0,0 +1,97 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+/**
+ * Generates rsid and paragraph ids for a single chart (or document level content) of a document being generated.
+ * <p>
+ * Each chart gets its own sequence starting at a base derived from the chart number, so ids are unique within a
+ * document without any counter shared between charts, documents or threads. Instances are not thread safe and must be
+ * confined to the thread building the chart.
+ * </p>
+ *
+ * @author sali
+ */
+public final class IdSequence {
+
+    /**
+     * Number of ids reserved for each chart.
+     */
+    private static final int CHART_SHIFT = 12;
+
+    /**
+     * Largest chart number whose ids still fit into 31 bits.
+     */
+    private static final int MAX_CHART_NUMBER = Integer.MAX_VALUE >>> CHART_SHIFT;
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private int value;
+
+    private final int limit;
+
+    /**
+     * Creates sequence for document level content.
+     */
+    public IdSequence() {
+        this(0);
+    }
+
+    private IdSequence(int base) {
+        this.value = base;
+        this.limit = base + (1 << CHART_SHIFT) - 1;
+    }
+
+    /**
+     * @param chartNumber one based number of chart in the document
+     * @return sequence for given chart
+     */
+    public static IdSequence forChart(int chartNumber) {
+        if (chartNumber < 1 || chartNumber > MAX_CHART_NUMBER) {
+            throw new IllegalArgumentException("chartNumber must be between 1 and " + MAX_CHART_NUMBER);
+        }
+        return new IdSequence(chartNumber << CHART_SHIFT);
+    }
+
+    /**
+     * @return next id as 8 digit hex number
+     * @throws IllegalStateException if all ids reserved for the chart have been used, an id beyond the range would
+     *                               collide with the ids of the next chart
+     */
+    public String nextId() {
+        if (value >= limit) {
+            throw new IllegalStateException("All " + ((1 << CHART_SHIFT) - 1) + " ids reserved for the chart have been "
+                    + "used.");
+        }
+        return toHex(++value);
+    }
+
+    /**
+     * @param chartNumber one based number of chart in the document
+     * @param id          8 digit hex id
+     * @return offset of given id within the ids of given chart, -1 if id was not generated for given chart
+     */
+    static int offsetOf(int chartNumber, String id) {
+        int value = (int) Long.parseLong(id, 16);
+        return ((value >>> CHART_SHIFT) == chartNumber) ? value & ((1 << CHART_SHIFT) - 1) : -1;
+    }
+
+    /**
+     * @param chartNumber one based number of chart in the document
+     * @param offset      offset of the id within the ids of given chart, see {@link #offsetOf(int, String)}
+     * @return id of given offset for given chart
+     */
+    static String idOf(int chartNumber, int offset) {
+        return toHex((chartNumber << CHART_SHIFT) + offset);
+    }
+
+    private static String toHex(int value) {
+        char[] chars = new char[8];
+        for (int i = 7; i >= 0; i--) {
+            chars[i] = HEX_DIGITS[value & 0xF];
+            value >>>= 4;
+        }
+        return new String(chars);
+    }
+}
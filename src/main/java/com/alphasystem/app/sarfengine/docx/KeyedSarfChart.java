@@ -0,0 +1,53 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import com.alphasystem.app.sarfengine.conjugation.model.ConjugationHeader;
+import com.alphasystem.app.sarfengine.conjugation.model.SarfChart;
+import com.alphasystem.app.sarfengine.conjugation.model.SarfKabeer;
+import com.alphasystem.app.sarfengine.conjugation.model.SarfSagheer;
+
+/**
+ * A chart identified by a caller supplied key instead of its content, optionally carrying the fragment rendered by a
+ * previous build. A chart carrying a fragment is neither conjugated nor rendered, the fragment is written as is.
+ *
+ * @author sali
+ */
+final class KeyedSarfChart extends SarfChart {
+
+    private final String key;
+
+    private final ChartFragment fragment;
+
+    /**
+     * @param key      key of the chart
+     * @param fragment previously rendered fragment
+     */
+    KeyedSarfChart(String key, ChartFragment fragment) {
+        super((ConjugationHeader) null, (SarfSagheer) null, (SarfKabeer) null);
+        this.key = key;
+        this.fragment = fragment;
+    }
+
+    /**
+     * @param key       key of the chart
+     * @param sarfChart chart to render
+     */
+    KeyedSarfChart(String key, SarfChart sarfChart) {
+        super(sarfChart.getChartTitle(), sarfChart.getSarfSagheer(), sarfChart.getSarfKabeer());
+        this.key = key;
+        this.fragment = null;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * @return previously rendered fragment, null if chart needs to be rendered
+     */
+    ChartFragment getFragment() {
+        return fragment;
+    }
+}
@@ -1,9 +1,13 @@
 /**
- * 
+ *
  */
 package com.alphasystem.app.sarfengine.docx;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.docx4j.openpackaging.parts.WordprocessingML.MainDocumentPart;
+import org.docx4j.wml.Tbl;
 
 import com.alphasystem.ApplicationException;
 import com.alphasystem.BusinessException;
@@ -12,22 +16,47 @@ import com.alphasystem.sarfengine.xml.model.ChartConfiguration;
 
 /**
  * Builds the entire Sarf chart.
- * 
+ *
  * @author sali
- * 
+ *
  */
 public class MainConjugation {
 
-	protected final AbbreviatedConjugation abbreviatedConjugation;
+	/**
+	 * Abbreviated conjugation section, created on first use so that omitted
+	 * sections are never built.
+	 */
+	protected AbbreviatedConjugation abbreviatedConjugation;
 
-	protected final DetailedConjugation detailedConjugation;
+	/**
+	 * Detailed conjugation section, created on first use.
+	 */
+	protected DetailedConjugation detailedConjugation;
 
 	protected final SarfChart sarfChart;
 
 	protected ChartConfiguration configuration;
 
 	/**
-	 * 
+	 * Per chart value of omit abbreviated conjugation flag, the shared
+	 * {@link ChartConfiguration} is never modified so that multiple charts can
+	 * be build concurrently.
+	 */
+	protected final boolean omitAbbreviatedConjugation;
+
+	/**
+	 * Per chart value of omit detailed conjugation flag.
+	 */
+	protected final boolean omitDetailedConjugation;
+
+	private final int chartNumber;
+
+	private final IdSequence ids;
+
+	private final UnicodeCache unicodeCache;
+
+	/**
+	 *
 	 * @param sarfChart
 	 */
 	public MainConjugation(SarfChart sarfChart) {
@@ -39,28 +68,75 @@ public class MainConjugation {
 	 * @param configuration
 	 */
 	public MainConjugation(SarfChart sarfChart, ChartConfiguration configuration) {
+		this(sarfChart, configuration, 1, new UnicodeCache());
+	}
+
+	/**
+	 * @param sarfChart
+	 * @param configuration
+	 * @param chartNumber
+	 *            one based number of the chart in the document, ids of the
+	 *            chart (including title bookmark) are derived from this number
+	 *            so each chart of a document must have distinct number
+	 * @param unicodeCache
+	 *            Unicode cache of the document
+	 */
+	public MainConjugation(SarfChart sarfChart,
+			ChartConfiguration configuration, int chartNumber,
+			UnicodeCache unicodeCache) {
 		this.sarfChart = sarfChart;
 		this.configuration = configuration == null ? new ChartConfiguration()
 				: configuration;
 
-		boolean omitAbbreviatedConjugation = this.sarfChart.getSarfSagheer() == null ? true
+		this.omitAbbreviatedConjugation = this.sarfChart.getSarfSagheer() == null ? true
 				: this.configuration.isOmitAbbreviatedConjugation();
-		this.configuration
-				.setOmitAbbreviatedConjugation(omitAbbreviatedConjugation);
 
-		boolean omitDetailedConjugation = this.sarfChart.getSarfKabeer() == null ? true
+		this.omitDetailedConjugation = this.sarfChart.getSarfKabeer() == null ? true
 				: this.configuration.isOmitDetailedConjugation();
-		this.configuration.setOmitDetailedConjugation(omitDetailedConjugation);
 
-		this.abbreviatedConjugation = new AbbreviatedConjugation(
-				this.configuration, this.sarfChart.getSarfSagheer(),
-				this.sarfChart.getChartTitle());
-		this.detailedConjugation = new DetailedConjugation(
-				this.sarfChart.getSarfKabeer());
+		this.chartNumber = chartNumber;
+		this.ids = IdSequence.forChart(chartNumber);
+		this.unicodeCache = unicodeCache;
+	}
+
+	/**
+	 * @return abbreviated conjugation section, created if not created yet
+	 */
+	protected AbbreviatedConjugation getAbbreviatedConjugation() {
+		if (abbreviatedConjugation == null) {
+			abbreviatedConjugation = new AbbreviatedConjugation(configuration,
+					sarfChart.getSarfSagheer(), sarfChart.getChartTitle(), ids,
+					chartNumber, unicodeCache);
+		}
+		return abbreviatedConjugation;
+	}
+
+	/**
+	 * @return detailed conjugation section, created if not created yet
+	 */
+	protected DetailedConjugation getDetailedConjugation() {
+		if (detailedConjugation == null) {
+			detailedConjugation = new DetailedConjugation(
+					sarfChart.getSarfKabeer(), ids, unicodeCache);
+		}
+		return detailedConjugation;
 	}
 
 	public void convert(MainDocumentPart mainDocumentPart)
 			throws ApplicationException {
+		for (Tbl tbl : getCharts()) {
+			mainDocumentPart.addObject(tbl);
+		}
+	}
+
+	/**
+	 * Builds tables for this chart without adding them to any document, tables
+	 * are returned in the order they should appear in the document.
+	 *
+	 * @return list of tables for this chart
+	 * @throws ApplicationException
+	 */
+	public List<Tbl> getCharts() throws ApplicationException {
 		if (sarfChart == null
 				|| (sarfChart.getSarfSagheer() == null && sarfChart
 						.getSarfKabeer() == null)) {
@@ -68,12 +144,31 @@ public class MainConjugation {
 					"SarfChart is not initailized properly.");
 		}
 
-		if (!configuration.isOmitAbbreviatedConjugation()) {
-			mainDocumentPart.addObject(abbreviatedConjugation.getChart());
+		List<Tbl> charts = new ArrayList<Tbl>(2);
+		if (!omitAbbreviatedConjugation) {
+			charts.add(getAbbreviatedConjugation().getChart());
 		}
-		if (!configuration.isOmitDetailedConjugation()) {
-			mainDocumentPart.addObject(detailedConjugation.getChart());
+		if (!omitDetailedConjugation) {
+			charts.add(getDetailedConjugation().getChart());
 		}
+		return charts;
+	}
+
+	/**
+	 * @return id of the bookmark of chart title, null if title has not been
+	 *         created
+	 */
+	public String getBookmarkId() {
+		return abbreviatedConjugation == null ? null : abbreviatedConjugation
+				.getBookmarkId();
+	}
+
+	public boolean isOmitAbbreviatedConjugation() {
+		return omitAbbreviatedConjugation;
+	}
+
+	public boolean isOmitDetailedConjugation() {
+		return omitDetailedConjugation;
 	}
 
 }
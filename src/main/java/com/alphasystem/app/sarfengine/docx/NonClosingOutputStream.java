@@ -0,0 +1,31 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Shields the underlying stream from being closed, e.g., by docx4j which closes the stream it saves a package into.
+ * Closing this stream only flushes the underlying stream.
+ *
+ * @author sali
+ */
+class NonClosingOutputStream extends FilterOutputStream {
+
+    NonClosingOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
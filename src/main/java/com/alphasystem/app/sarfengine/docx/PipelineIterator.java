@@ -0,0 +1,109 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * A pipeline stage which applies given function to the elements of source iterator on its own executor. At most
+ * <code>capacity</code> elements are processed ahead of the consumer, which provides back-pressure: once the consumer
+ * stops pulling, the stage stops pulling from the source. Results are returned in the order of the source.
+ * <p>
+ * Iterator is meant to be consumed by a single thread.
+ * </p>
+ *
+ * @param <S> type of source elements
+ * @param <T> type of results
+ * @author sali
+ */
+final class PipelineIterator<S, T> implements Iterator<T> {
+
+    private final Iterator<S> source;
+
+    private final Function<S, T> function;
+
+    private final Executor executor;
+
+    private final int capacity;
+
+    private final ArrayDeque<CompletableFuture<T>> inFlight;
+
+    private boolean cancelled;
+
+    /**
+     * @param source   source of elements
+     * @param function function to apply on each element
+     * @param executor executor of this stage
+     * @param capacity maximum number of elements processed ahead of the consumer
+     */
+    PipelineIterator(Iterator<S> source, Function<S, T> function, Executor executor, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than zero");
+        }
+        this.source = source;
+        this.function = function;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.inFlight = new ArrayDeque<>(capacity);
+    }
+
+    @Override
+    public boolean hasNext() {
+        fill();
+        return !inFlight.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        fill();
+        CompletableFuture<T> future = inFlight.poll();
+        if (future == null) {
+            throw new NoSuchElementException();
+        }
+        // keep the stage busy while the consumer handles current result
+        fill();
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Pipeline has been interrupted.");
+        } catch (ExecutionException e) {
+            cancel();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Cancels elements in flight, no more elements are pulled from the source.
+     */
+    void cancel() {
+        cancelled = true;
+        CompletableFuture<T> future;
+        while ((future = inFlight.poll()) != null) {
+            future.cancel(false);
+        }
+    }
+
+    private void fill() {
+        while (!cancelled && inFlight.size() < capacity && source.hasNext()) {
+            final S element = source.next();
+            inFlight.add(CompletableFuture.supplyAsync(() -> function.apply(element), executor));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import org.docx4j.openpackaging.exceptions.Docx4JException;
+import org.docx4j.wml.Tbl;
+
+import java.util.List;
+
+/**
+ * Result of rendering a single chart, either tables or already marshalled table fragments.
+ *
+ * @author sali
+ */
+final class RenderedChart {
+
+    private final List<Tbl> tables;
+
+    private final List<String> fragments;
+
+    private RenderedChart(List<Tbl> tables, List<String> fragments) {
+        this.tables = tables;
+        this.fragments = fragments;
+    }
+
+    static RenderedChart ofTables(List<Tbl> tables) {
+        return new RenderedChart(tables, null);
+    }
+
+    static RenderedChart ofFragments(List<String> fragments) {
+        return new RenderedChart(null, fragments);
+    }
+
+    void writeTo(BodyWriter bodyWriter) throws Docx4JException {
+        if (fragments != null) {
+            for (String fragment : fragments) {
+                bodyWriter.writeFragment(fragment);
+            }
+            return;
+        }
+        for (Tbl tbl : tables) {
+            bodyWriter.write(tbl);
+        }
+    }
+}
@@ -3,8 +3,14 @@
  */
 package com.alphasystem.app.sarfengine.docx;
 
+import static com.alphasystem.app.sarfengine.docx.ConjugationHelper.ARABIC_CS_RTL_RPR;
 import static com.alphasystem.app.sarfengine.docx.ConjugationHelper.ARABIC_TOC_STYLE;
-import static com.alphasystem.openxml.builder.OpenXmlAdapter.createNewDoc;
+import static com.alphasystem.app.sarfengine.docx.ConjugationHelper.getBookMarkId;
+import static com.alphasystem.app.sarfengine.docx.ConjugationHelper.getBookMarkName;
+import static com.alphasystem.app.sarfengine.docx.ConjugationHelper.getTitleWord;
+import static com.alphasystem.app.sarfengine.docx.ConversionStage.MARSHALLING;
+import static com.alphasystem.app.sarfengine.docx.ConversionStage.SAVE;
+import static com.alphasystem.app.sarfengine.docx.ConversionStage.TABLE_BUILDING;
 import static com.alphasystem.openxml.builder.OpenXmlAdapter.getHpsMeasure;
 import static com.alphasystem.openxml.builder.OpenXmlAdapter.getText;
 import static com.alphasystem.openxml.builder.OpenXmlAdapter.getWrappedFldChar;
@@ -25,22 +31,40 @@ import static com.alphasystem.openxml.builder.OpenXmlBuilderFactory.getSectPrPgM
 import static com.alphasystem.openxml.builder.OpenXmlBuilderFactory.getSectPrPgSzBuilder;
 import static com.alphasystem.openxml.builder.OpenXmlBuilderFactory.getSectPrTypeBuilder;
 import static com.alphasystem.openxml.builder.OpenXmlBuilderFactory.getTabsBuilder;
-import static com.alphasystem.util.IdGenerator.nextId;
-import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.apache.commons.lang3.ArrayUtils.isEmpty;
 import static org.docx4j.wml.STFldCharType.BEGIN;
 import static org.docx4j.wml.STFldCharType.END;
+import static org.docx4j.wml.STFldCharType.SEPARATE;
 import static org.docx4j.wml.STTabJc.RIGHT;
 import static org.docx4j.wml.STTabTlc.DOT;
 import static org.docx4j.wml.STTheme.MINOR_EAST_ASIA;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
+import javax.xml.bind.JAXBException;
+
+import org.docx4j.XmlUtils;
 import org.docx4j.openpackaging.exceptions.Docx4JException;
 import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
 import org.docx4j.openpackaging.parts.WordprocessingML.MainDocumentPart;
@@ -50,7 +74,9 @@ import org.docx4j.wml.CTLanguage;
 import org.docx4j.wml.CTTabStop;
 import org.docx4j.wml.FldChar;
 import org.docx4j.wml.HpsMeasure;
+import org.docx4j.wml.ObjectFactory;
 import org.docx4j.wml.P;
+import org.docx4j.wml.P.Hyperlink;
 import org.docx4j.wml.PPr;
 import org.docx4j.wml.ParaRPr;
 import org.docx4j.wml.R;
@@ -60,11 +86,16 @@ import org.docx4j.wml.SectPr.PgMar;
 import org.docx4j.wml.SectPr.PgSz;
 import org.docx4j.wml.SectPr.Type;
 import org.docx4j.wml.Tabs;
+import org.docx4j.wml.Tbl;
 import org.docx4j.wml.Text;
+import org.docx4j.wml.Tr;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.alphasystem.ApplicationException;
 import com.alphasystem.app.sarfengine.conjugation.model.SarfChart;
 import com.alphasystem.app.sarfengine.conjugation.model.SarfKabeer;
+import com.alphasystem.app.sarfengine.conjugation.model.SarfSagheer;
 import com.alphasystem.sarfengine.xml.model.ChartConfiguration;
 
 /**
@@ -73,13 +104,34 @@ import com.alphasystem.sarfengine.xml.model.ChartConfiguration;
  */
 public class SarfEngine implements Callable<Boolean> {
 
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(SarfEngine.class);
+
+	/**
+	 * Plain object factory, {@link org.docx4j.jaxb.Context} is not touched
+	 * when this class is loaded so that JAXB contexts are only created when
+	 * the first document is built.
+	 */
+	private static final ObjectFactory WML_OBJECT_FACTORY = new ObjectFactory();
+
 	private static void addFieldBegin(P paragraph) {
-		FldChar fldchar = getFldCharBuilder().withDirty(true)
+		addFieldBegin(paragraph, true);
+	}
+
+	private static void addFieldBegin(P paragraph, boolean dirty) {
+		FldChar fldchar = getFldCharBuilder().withDirty(dirty)
 				.withFldCharType(BEGIN).getObject();
 		R r = getRBuilder().addContent(getWrappedFldChar(fldchar)).getObject();
 		paragraph.getContent().add(r);
 	}
 
+	private static void addFieldSeparate(P paragraph) {
+		FldChar fldchar = getFldCharBuilder().withFldCharType(SEPARATE)
+				.getObject();
+		R r = getRBuilder().addContent(getWrappedFldChar(fldchar)).getObject();
+		paragraph.getContent().add(r);
+	}
+
 	private static void addFieldEnd(P paragraph) {
 		FldChar fldchar = getFldCharBuilder().withFldCharType(END).getObject();
 		R r = getRBuilder().addContent(getWrappedFldChar(fldchar)).getObject();
@@ -93,7 +145,8 @@ public class SarfEngine implements Callable<Boolean> {
 		paragraph.getContent().add(r);
 	}
 
-	private static SectPr createSectPrInternal(String rsidR, String num) {
+	private static SectPr createSectPrInternal(IdSequence ids, String rsidR,
+			String num) {
 		Type type = getSectPrTypeBuilder().withVal("continuous").getObject();
 		PgSz pgSz = getSectPrPgSzBuilder().withW("12240").withH("15840")
 				.getObject();
@@ -107,29 +160,98 @@ public class SarfEngine implements Callable<Boolean> {
 		CTDocGrid docGrid = getCTDocGridBuilder().withLinePitch("360")
 				.getObject();
 
-		return getSectPrBuilder().withRsidR(rsidR).withRsidSect(nextId())
+		return getSectPrBuilder().withRsidR(rsidR).withRsidSect(ids.nextId())
 				.withType(type).withPgSz(pgSz).withPgMar(pgMar).withCols(cols)
 				.withDocGrid(docGrid).getObject();
 	}
 
 	private static SarfChart[] initFromSarfKabeer(SarfKabeer... sarfKabeers) {
-		SarfChart[] sarfCharts = new SarfChart[0];
-		if (!isEmpty(sarfKabeers)) {
-			List<SarfChart> list = new ArrayList<SarfChart>();
-			for (SarfKabeer sk : sarfKabeers) {
-				list.add(new SarfChart(null, null, sk));
-			}
-			sarfCharts = list.toArray(new SarfChart[0]);
+		if (isEmpty(sarfKabeers)) {
+			return new SarfChart[0];
+		}
+		SarfChart[] sarfCharts = new SarfChart[sarfKabeers.length];
+		for (int i = 0; i < sarfKabeers.length; i++) {
+			sarfCharts[i] = new SarfChart(null, null, sarfKabeers[i]);
 		}
 		return sarfCharts;
 	}
 
+	/**
+	 * Charts of this engine, null if charts are supplied lazily by
+	 * {@link #chartSource}.
+	 */
 	private final SarfChart[] sarfCharts;
 
+	/**
+	 * Lazy source of charts, charts are pulled while the document is being
+	 * written and are not referenced by this engine once written. Source can
+	 * be consumed only once.
+	 */
+	private Iterator<SarfChart> chartSource;
+
+	/**
+	 * Stream backing {@link #chartSource}, closed once the source has been
+	 * consumed, null if charts are not supplied by a stream.
+	 */
+	private Stream<SarfChart> chartStream;
+
+	/**
+	 * Number of charts written by last conversion.
+	 */
+	private int chartCount;
+
 	private File file;
 
 	private ChartConfiguration configuration;
 
+	/**
+	 * Flag to indicate whether to build chart tables in parallel.
+	 */
+	private boolean parallel;
+
+	/**
+	 * Pool to build chart tables in parallel mode, if null common pool will be
+	 * used.
+	 */
+	private ForkJoinPool forkJoinPool;
+
+	/**
+	 * Flag to indicate whether to write document body directly into
+	 * destination file instead of building whole document in memory.
+	 */
+	private boolean streaming;
+
+	private ConversionListener conversionListener = ConversionListener.NO_OP;
+
+	/**
+	 * Cache of rendered charts shared between documents, null if caching is
+	 * not enabled.
+	 */
+	private ChartFragmentCache fragmentCache;
+
+	/**
+	 * On-disk checkpoint of rendered charts, null if checkpointing is not
+	 * enabled.
+	 */
+	private ChartCheckpoint checkpoint;
+
+	/**
+	 * Set once the checkpoint could not be written, the conversion then
+	 * continues without the checkpoint.
+	 */
+	private volatile boolean checkpointFailed;
+
+	/**
+	 * Charts failed in last conversion.
+	 */
+	private final List<ChartFailure> failures = new ArrayList<ChartFailure>();
+
+	/**
+	 * Flag to indicate whether to write table of content entries at write
+	 * time instead of a TOC field to be computed by word processor.
+	 */
+	private boolean precomputedToc;
+
 	/**
 	 * @param destFile
 	 * @param sarfCharts
@@ -154,6 +276,52 @@ public class SarfEngine implements Callable<Boolean> {
 		this.file = destFile;
 	}
 
+	private SarfEngine(File destFile, ChartConfiguration configuration,
+			Iterator<SarfChart> charts, Stream<SarfChart> chartStream) {
+		if (charts == null) {
+			throw new NullPointerException("charts cannot be null");
+		}
+		this.sarfCharts = null;
+		this.chartSource = charts;
+		this.chartStream = chartStream;
+		this.configuration = configuration == null ? new ChartConfiguration()
+				: configuration;
+		this.file = destFile;
+	}
+
+	/**
+	 * Creates engine which pulls charts from given iterator while writing the
+	 * document, so that conjugation of charts can overlap with rendering and
+	 * charts can be garbage collected once written. Charts are written in the
+	 * order of iteration and table of content is always a TOC field (see
+	 * {@link #setPrecomputedToc(boolean)}). Engine can be converted only once.
+	 *
+	 * @param destFile
+	 * @param configuration
+	 * @param charts
+	 * @return engine pulling charts from given iterator
+	 */
+	public static SarfEngine fromIterator(File destFile,
+			ChartConfiguration configuration, Iterator<SarfChart> charts) {
+		return new SarfEngine(destFile, configuration, charts, null);
+	}
+
+	/**
+	 * Creates engine which pulls charts from given stream while writing the
+	 * document, see {@link #fromIterator(File, ChartConfiguration, Iterator)}.
+	 * Stream is closed once the document has been written.
+	 *
+	 * @param destFile
+	 * @param configuration
+	 * @param charts
+	 * @return engine pulling charts from given stream
+	 */
+	public static SarfEngine fromStream(File destFile,
+			ChartConfiguration configuration, Stream<SarfChart> charts) {
+		return new SarfEngine(destFile, configuration, charts.iterator(),
+				charts);
+	}
+
 	/**
 	 * @param destFil
 	 * @param sarfKabeers
@@ -197,27 +365,284 @@ public class SarfEngine implements Callable<Boolean> {
 		this(null, null, initFromSarfKabeer(sarfKabeers));
 	}
 
-	private void buildSarfChart(MainDocumentPart mainDocumentPart) {
-		if (isEmpty(sarfCharts)) {
+	/**
+	 * @return iterator of charts to be written
+	 * @throws IllegalStateException
+	 *             if lazy source of charts has already been consumed
+	 */
+	private Iterator<SarfChart> chartIterator() {
+		if (sarfCharts != null) {
+			return Arrays.asList(sarfCharts).iterator();
+		}
+		Iterator<SarfChart> iterator = chartSource;
+		if (iterator == null) {
+			throw new IllegalStateException(
+					"Charts have already been consumed.");
+		}
+		chartSource = null;
+		return iterator;
+	}
+
+	private void buildSarfChart(BodyWriter bodyWriter)
+			throws Docx4JException {
+		Stream<SarfChart> stream = chartStream;
+		chartStream = null;
+		try {
+			buildSarfChart(bodyWriter, chartIterator());
+		} finally {
+			if (stream != null) {
+				stream.close();
+			}
+		}
+	}
+
+	private void buildSarfChart(BodyWriter bodyWriter,
+			Iterator<SarfChart> charts) throws Docx4JException {
+		chartCount = 0;
+		failures.clear();
+		if (!charts.hasNext()) {
 			return;
 		}
+		// Unicode of repeated forms is computed once per document
+		UnicodeCache unicodeCache = new UnicodeCache();
 		if (!configuration.isOmitAbbreviatedConjugation()
 				&& !configuration.isOmitToc()) {
-			mainDocumentPart.addObject(createTocSectionBreak());
-			mainDocumentPart.addObject(createToc());
-			mainDocumentPart.addObject(createSecondSectionBreak());
+			IdSequence ids = new IdSequence();
+			bodyWriter.write(createTocSectionBreak(ids));
+			// entries can only be precomputed when all charts are known up front
+			if (precomputedToc && sarfCharts == null) {
+				LOGGER.info("Charts are supplied lazily, writing a TOC field instead of precomputed table of content.");
+			}
+			List<P> tocEntries = precomputedToc && sarfCharts != null ? createPrecomputedToc(
+					ids, unicodeCache) : null;
+			if (tocEntries == null || tocEntries.isEmpty()) {
+				bodyWriter.write(createToc(ids));
+			} else {
+				for (P tocEntry : tocEntries) {
+					bodyWriter.write(tocEntry);
+				}
+			}
+			bodyWriter.write(createSecondSectionBreak(ids));
 		}
-		for (SarfChart sarfChart : sarfCharts) {
-			MainConjugation mainConjugation = new MainConjugation(sarfChart,
-					configuration);
+		if (parallel && (sarfCharts == null || sarfCharts.length > 1)) {
+			buildSarfChartInParallel(charts, bodyWriter, unicodeCache);
+			return;
+		}
+		while (charts.hasNext()) {
+			checkInterrupted();
+			SarfChart sarfChart = charts.next();
+			chartCount++;
+			RenderedChart renderedChart;
 			try {
-				mainConjugation.convert(mainDocumentPart);
-			} catch (ApplicationException e) {
-				e.printStackTrace();
+				renderedChart = renderChart(sarfChart, chartCount, unicodeCache);
+			} catch (Exception e) {
+				// same as parallel rendering, any failure of a chart only
+				// leaves that chart out
+				chartFailed(chartCount, sarfChart, e);
+				continue;
+			}
+			renderedChart.writeTo(bodyWriter);
+		}
+	}
+
+	/**
+	 * Records failed chart, failed chart is left out of the document.
+	 *
+	 * @param chartNumber
+	 * @param sarfChart
+	 * @param cause
+	 */
+	private void chartFailed(int chartNumber, SarfChart sarfChart,
+			Throwable cause) {
+		ChartFailure failure = new ChartFailure(chartNumber, sarfChart, cause);
+		failures.add(failure);
+		conversionListener.chartFailed(failure);
+	}
+
+	/**
+	 * Builds tables of given chart and reports the table building stage. If
+	 * fragment cache (streaming mode only) or checkpoint is set then stored
+	 * fragment is used when available, otherwise built tables are added into
+	 * the cache and the checkpoint. Stored fragments get the bookmark and ids
+	 * of given chart number.
+	 *
+	 * @param sarfChart
+	 * @param chartNumber
+	 *            one based number of the chart in the document
+	 * @param unicodeCache
+	 *            Unicode cache of the document
+	 * @return tables of given chart
+	 * @throws ApplicationException
+	 */
+	private RenderedChart renderChart(SarfChart sarfChart, int chartNumber,
+			UnicodeCache unicodeCache) throws ApplicationException {
+		if (sarfChart instanceof FailedSarfChart) {
+			// conjugation already failed in a pipeline stage
+			throw ((FailedSarfChart) sarfChart).getCause();
+		}
+		// in package mode every reused fragment would be parsed again, which
+		// costs about as much as building the tables
+		ChartFragmentCache cache = streaming ? fragmentCache : null;
+		String key;
+		ChartFragment storedFragment = null;
+		if (sarfChart instanceof KeyedSarfChart) {
+			KeyedSarfChart keyedSarfChart = (KeyedSarfChart) sarfChart;
+			key = keyedSarfChart.getKey();
+			storedFragment = keyedSarfChart.getFragment();
+		} else {
+			key = cache == null && checkpoint == null ? null
+					: ChartFragmentCache.key(sarfChart, configuration);
+		}
+		if (storedFragment != null) {
+			return RenderedChart.ofFragments(storedFragment
+					.resolve(chartNumber));
+		}
+		if (key != null) {
+			ChartFragment fragment = cache == null ? null : cache.get(key);
+			if (fragment == null && checkpoint != null && !checkpointFailed) {
+				try {
+					fragment = checkpoint.get(key);
+				} catch (UncheckedIOException e) {
+					// unreadable entry is rendered again and overwritten
+					LOGGER.warn("Unable to read chart " + chartNumber
+							+ " from checkpoint " + checkpoint.getDirectory(), e);
+				}
+			}
+			if (fragment != null) {
+				return RenderedChart.ofFragments(fragment.resolve(chartNumber));
+			}
+		}
+		long start = System.nanoTime();
+		MainConjugation mainConjugation = new MainConjugation(sarfChart,
+				configuration, chartNumber, unicodeCache);
+		List<Tbl> tables = mainConjugation.getCharts();
+		conversionListener.stageCompleted(TABLE_BUILDING, System.nanoTime()
+				- start);
+		if (conversionListener != ConversionListener.NO_OP) {
+			int rows = 0;
+			int cells = 0;
+			for (Tbl tbl : tables) {
+				for (Object content : tbl.getContent()) {
+					Object row = XmlUtils.unwrap(content);
+					if (row instanceof Tr) {
+						rows++;
+						cells += ((Tr) row).getContent().size();
+					}
+				}
+			}
+			conversionListener.chartRendered(rows, cells);
+		}
+		if (key == null || (cache == null && checkpoint == null)) {
+			return RenderedChart.ofTables(tables);
+		}
+		ChartFragment fragment = ChartFragment.of(tables, chartNumber,
+				mainConjugation.getBookmarkId());
+		if (cache != null) {
+			cache.put(key, fragment);
+		}
+		if (checkpoint != null && !checkpointFailed) {
+			storeInCheckpoint(key, fragment);
+		}
+		// in streaming mode reuse marshalled tables instead of marshalling again
+		return streaming ? RenderedChart.ofFragments(fragment
+				.resolve(chartNumber)) : RenderedChart.ofTables(tables);
+	}
+
+	/**
+	 * Stores given fragment in the checkpoint, a failure of the checkpoint is
+	 * not a failure of the chart: it is logged once and the conversion
+	 * continues without the checkpoint.
+	 *
+	 * @param key
+	 * @param fragment
+	 */
+	private void storeInCheckpoint(String key, ChartFragment fragment) {
+		try {
+			checkpoint.put(key, fragment);
+		} catch (UncheckedIOException e) {
+			if (!checkpointFailed) {
+				checkpointFailed = true;
+				LOGGER.warn("Unable to write checkpoint "
+						+ checkpoint.getDirectory()
+						+ ", continuing without checkpoint.", e);
+			}
+		}
+	}
+
+	/**
+	 * Builds tables of each chart on fork-join pool, tables are written in the
+	 * original order of charts. At most a window of few times the pool
+	 * parallelism is rendered ahead of the writer in streaming mode, or when
+	 * charts are supplied lazily, so that only a window of charts is held in
+	 * memory. Window slides as each chart is written, so rendering of next
+	 * charts overlaps with serialization of current chart.
+	 *
+	 * @param charts
+	 * @param bodyWriter
+	 * @param unicodeCache
+	 *            Unicode cache of the document, shared by all tasks
+	 * @throws Docx4JException
+	 */
+	private void buildSarfChartInParallel(Iterator<SarfChart> charts,
+			BodyWriter bodyWriter, final UnicodeCache unicodeCache)
+			throws Docx4JException {
+		ForkJoinPool pool = forkJoinPool == null ? ForkJoinPool.commonPool()
+				: forkJoinPool;
+		int windowSize = streaming || sarfCharts == null ? pool
+				.getParallelism() * 4 : sarfCharts.length;
+		ArrayDeque<Future<RenderedChart>> inFlight = new ArrayDeque<Future<RenderedChart>>(
+				windowSize);
+		ArrayDeque<SarfChart> pendingCharts = new ArrayDeque<SarfChart>(
+				windowSize);
+		try {
+			while (charts.hasNext() || !inFlight.isEmpty()) {
+				checkInterrupted();
+				while (inFlight.size() < windowSize && charts.hasNext()) {
+					final SarfChart sarfChart = charts.next();
+					final int chartNumber = ++chartCount;
+					pendingCharts.add(sarfChart);
+					inFlight.add(pool.submit(new Callable<RenderedChart>() {
+						@Override
+						public RenderedChart call() throws Exception {
+							return renderChart(sarfChart, chartNumber,
+									unicodeCache);
+						}
+					}));
+				}
+				Future<RenderedChart> future = inFlight.poll();
+				SarfChart sarfChart = pendingCharts.poll();
+				try {
+					future.get().writeTo(bodyWriter);
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					chartFailed(chartCount - inFlight.size(), sarfChart, cause);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					checkInterrupted();
+				}
+			}
+		} finally {
+			// charts rendered ahead of a failed writer must not keep the pool
+			// busy
+			for (Future<RenderedChart> pending : inFlight) {
+				pending.cancel(false);
 			}
 		}
 	}
 
+	/**
+	 * Stops the conversion if current thread has been interrupted, i.e., the
+	 * job running this engine has been cancelled or timed out.
+	 */
+	private static void checkInterrupted() {
+		if (Thread.currentThread().isInterrupted()) {
+			throw new CancellationException("Conversion has been interrupted.");
+		}
+	}
+
 	@Override
 	public Boolean call() throws Exception {
 		boolean done;
@@ -234,27 +659,182 @@ public class SarfEngine implements Callable<Boolean> {
 	}
 
 	public void convert() throws Docx4JException {
-		WordprocessingMLPackage wordprocessingMLPackage = createNewDoc();
-		MainDocumentPart mainDocumentPart = wordprocessingMLPackage
-				.getMainDocumentPart();
-		buildSarfChart(mainDocumentPart);
-		save(file, wordprocessingMLPackage);
+		long start = System.nanoTime();
+		boolean written = false;
+		try {
+			if (streaming) {
+				try (OutputStream outputStream = new BufferedOutputStream(
+						new FileOutputStream(file))) {
+					write(outputStream);
+				}
+			} else {
+				WordprocessingMLPackage wordprocessingMLPackage = BasePackage
+						.newPackage();
+				buildSarfChart(wordprocessingMLPackage.getMainDocumentPart());
+				long saveStart = System.nanoTime();
+				save(file, wordprocessingMLPackage);
+				conversionListener.stageCompleted(SAVE, System.nanoTime()
+						- saveStart);
+			}
+			written = true;
+		} catch (IOException e) {
+			throw new Docx4JException(e.getMessage(), e);
+		} finally {
+			if (!written) {
+				// never leave a partial document behind
+				file.delete();
+			}
+		}
+		conversionListener.documentWritten(chartCount, file.length(),
+				System.nanoTime() - start);
 	}
 
-	private P createSecondSectionBreak() {
-		String rsidR = nextId();
-		SectPr sectPr = createSectPrInternal(rsidR, "2");
+	/**
+	 * Converts charts into given stream, stream is not closed. If conversion
+	 * fails then stream holds an incomplete document which must be discarded.
+	 *
+	 * @param outputStream
+	 * @throws Docx4JException
+	 */
+	public void convert(OutputStream outputStream) throws Docx4JException {
+		long start = System.nanoTime();
+		CountingOutputStream countingOutputStream = new CountingOutputStream(
+				outputStream);
+		write(countingOutputStream);
+		conversionListener.documentWritten(chartCount,
+				countingOutputStream.getCount(), System.nanoTime() - start);
+	}
+
+	/**
+	 * Writes the document with the streaming writer whatever the mode is,
+	 * static parts are copied from the bytes of the base package so that an in
+	 * memory export never loads a package. Streaming mode only decides whether
+	 * rendered charts are reused as marshalled fragments. The document is only
+	 * finished if every chart has been written, on failure the stream is left
+	 * with an incomplete zip which no reader takes for a complete document.
+	 *
+	 * @param outputStream
+	 * @throws Docx4JException
+	 */
+	private void write(OutputStream outputStream) throws Docx4JException {
+		final StreamingDocumentWriter writer = new StreamingDocumentWriter(
+				BasePackage.getBytes(), outputStream);
+		boolean completed = false;
+		try {
+			buildSarfChart(new BodyWriter() {
+				@Override
+				public void write(Object content) throws Docx4JException {
+					long start = System.nanoTime();
+					writer.write(content);
+					conversionListener.stageCompleted(MARSHALLING,
+							System.nanoTime() - start);
+				}
+
+				@Override
+				public void writeFragment(String xml) throws Docx4JException {
+					long start = System.nanoTime();
+					writer.writeFragment(xml);
+					conversionListener.stageCompleted(MARSHALLING,
+							System.nanoTime() - start);
+				}
+			});
+			long saveStart = System.nanoTime();
+			// document is only finished once every chart has been written
+			writer.close();
+			completed = true;
+			conversionListener.stageCompleted(SAVE, System.nanoTime()
+					- saveStart);
+		} catch (IOException e) {
+			throw new Docx4JException(e.getMessage(), e);
+		} finally {
+			if (!completed) {
+				writer.abort();
+			}
+		}
+	}
+
+	/**
+	 * Converts charts into given channel, e.g., a socket or a file channel,
+	 * channel is not closed.
+	 *
+	 * @param channel
+	 * @throws Docx4JException
+	 */
+	public void convert(WritableByteChannel channel) throws Docx4JException {
+		// closing the stream returned by Channels would close the channel
+		OutputStream outputStream = new NonClosingOutputStream(
+				new BufferedOutputStream(Channels.newOutputStream(channel)));
+		convert(outputStream);
+		try {
+			outputStream.flush();
+		} catch (IOException e) {
+			throw new Docx4JException(e.getMessage(), e);
+		}
+		if (!channel.isOpen()) {
+			throw new Docx4JException(
+					"Channel has been closed while writing the document.");
+		}
+	}
+
+	/**
+	 * Converts charts into an in memory document.
+	 *
+	 * @return bytes of the document
+	 * @throws Docx4JException
+	 */
+	public byte[] toByteArray() throws Docx4JException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		convert(outputStream);
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * Converts charts into an in memory document without copying the
+	 * document bytes.
+	 *
+	 * @return read only buffer of the document, positioned at the beginning
+	 *         of document
+	 * @throws Docx4JException
+	 */
+	public ByteBuffer toByteBuffer() throws Docx4JException {
+		DocumentBuffer documentBuffer = new DocumentBuffer();
+		convert(documentBuffer);
+		return documentBuffer.toByteBuffer();
+	}
+
+	private void buildSarfChart(final MainDocumentPart mainDocumentPart)
+			throws Docx4JException {
+		buildSarfChart(new BodyWriter() {
+			@Override
+			public void write(Object content) {
+				mainDocumentPart.addObject(content);
+			}
+
+			@Override
+			public void writeFragment(String xml) throws Docx4JException {
+				try {
+					mainDocumentPart.addObject(XmlUtils.unmarshalString(xml));
+				} catch (JAXBException e) {
+					throw new Docx4JException(e.getMessage(), e);
+				}
+			}
+		});
+	}
+
+	private P createSecondSectionBreak(IdSequence ids) {
+		String rsidR = ids.nextId();
+		SectPr sectPr = createSectPrInternal(ids, rsidR, "2");
 		PPr pPr = getPPrBuilder().withSectPr(sectPr).getObject();
 		R r = getRBuilder().addContent(
 				getFldCharBuilder().withFldCharType(END).getObject())
 				.getObject();
-		return getPBuilder().withParaId(nextId()).withRsidR(rsidR)
-				.withRsidRDefault(nextId()).withRsidP(nextId()).withPPr(pPr)
+		return getPBuilder().withParaId(ids.nextId()).withRsidR(rsidR)
+				.withRsidRDefault(ids.nextId()).withRsidP(ids.nextId()).withPPr(pPr)
 				.addContent(r).getObject();
 	}
 
-	private P createToc() {
-		String rsidR = nextId();
+	private P createToc(IdSequence ids) {
+		String rsidR = ids.nextId();
 
 		CTTabStop cTTabStop = getCTTabStopBuilder().withVal(RIGHT)
 				.withLeader(DOT).withPos("3600").getObject();
@@ -273,8 +853,8 @@ public class SarfEngine implements Callable<Boolean> {
 		PPr ppr = getPPrBuilder().withPStyle(ARABIC_TOC_STYLE).withRPr(rPr)
 				.withTabs(tabs).getObject();
 
-		P p = getPBuilder().withParaId(nextId()).withRsidR(rsidR)
-				.withRsidRDefault(nextId()).withRsidP(nextId()).withPPr(ppr)
+		P p = getPBuilder().withParaId(ids.nextId()).withRsidR(rsidR)
+				.withRsidRDefault(ids.nextId()).withRsidP(ids.nextId()).withPPr(ppr)
 				.getObject();
 		addFieldBegin(p);
 		addTableOfContentField(p);
@@ -282,10 +862,64 @@ public class SarfEngine implements Callable<Boolean> {
 		return p;
 	}
 
-	private P createTocSectionBreak() {
-		String rsidR = nextId();
+	/**
+	 * Creates table of content entries at write time, one hyperlinked entry
+	 * per chart title pointing to the bookmark created by
+	 * {@link AbbreviatedConjugation}. Entries are the result of a single TOC
+	 * field which is not marked dirty, so word processors do not rebuild it on
+	 * open: the first entry carries the field begin, instruction and separate,
+	 * the field end is written by the second section break which follows the
+	 * entries.
+	 * <p>
+	 * Entries have no page numbers, page numbers are only known to the word
+	 * processor and are added once fields are updated. All entries share one
+	 * rsid as they belong to the same revision, this also keeps the document
+	 * level ids within their range for any number of charts.
+	 * </p>
+	 *
+	 * @param ids
+	 * @param unicodeCache
+	 * @return entries of table of content
+	 */
+	private List<P> createPrecomputedToc(IdSequence ids,
+			UnicodeCache unicodeCache) {
+		List<P> entries = new ArrayList<P>();
+		if (configuration.isOmitTitle()) {
+			return entries;
+		}
+		PPr ppr = getPPrBuilder().withPStyle(ARABIC_TOC_STYLE)
+				.withBidi(BOOLEAN_DEFAULT_TRUE_TRUE).getObject();
+		String rsidR = ids.nextId();
+		for (int i = 0; i < sarfCharts.length; i++) {
+			SarfSagheer sarfSagheer = sarfCharts[i].getSarfSagheer();
+			if (sarfSagheer == null) {
+				continue;
+			}
+			P p = getPBuilder().withRsidR(rsidR).withRsidRDefault(rsidR)
+					.withRsidP(rsidR).withPPr(ppr).getObject();
+			if (entries.isEmpty()) {
+				addFieldBegin(p, false);
+				addTableOfContentField(p);
+				addFieldSeparate(p);
+			}
+			Text text = getText(unicodeCache.toUnicode(getTitleWord(sarfSagheer
+					.getActiveLine())), null);
+			R r = getRBuilder().withRPr(ARABIC_CS_RTL_RPR).addContent(text)
+					.getObject();
+			Hyperlink hyperlink = WML_OBJECT_FACTORY.createPHyperlink();
+			hyperlink.setAnchor(getBookMarkName(getBookMarkId(i + 1)));
+			hyperlink.setHistory(true);
+			hyperlink.getContent().add(r);
+			p.getContent().add(WML_OBJECT_FACTORY.createPHyperlink(hyperlink));
+			entries.add(p);
+		}
+		return entries;
+	}
 
-		SectPr sectPr = createSectPrInternal(rsidR, null);
+	private P createTocSectionBreak(IdSequence ids) {
+		String rsidR = ids.nextId();
+
+		SectPr sectPr = createSectPrInternal(ids, rsidR, null);
 
 		CTTabStop cTTabStop = getCTTabStopBuilder().withVal(RIGHT)
 				.withLeader(DOT).withPos("9350").getObject();
@@ -294,28 +928,47 @@ public class SarfEngine implements Callable<Boolean> {
 		PPr ppr = getPPrBuilder().withPStyle(ARABIC_TOC_STYLE).withTabs(tabs)
 				.withSectPr(sectPr).getObject();
 
-		return getPBuilder().withParaId(nextId()).withRsidR(rsidR)
-				.withRsidRDefault(nextId()).withRsidP(nextId()).withPPr(ppr)
+		return getPBuilder().withParaId(ids.nextId()).withRsidR(rsidR)
+				.withRsidRDefault(ids.nextId()).withRsidP(ids.nextId()).withPPr(ppr)
 				.getObject();
 	}
 
+	/**
+	 * Runs the conversion in the calling thread, use {@link SarfEngineService}
+	 * to run conversions asynchronously.
+	 *
+	 * @return true if conversion was successful
+	 */
 	public Boolean execute() {
-		Boolean result = true;
-		ExecutorService executorService = newSingleThreadExecutor();
-		Future<Boolean> done = executorService.submit(this);
-		if (done != null) {
-			try {
-				result = done.get();
-			} catch (Exception e) {
-				result = false;
-				e.printStackTrace();
-			} finally {
-				executorService.shutdown();
-			}
+		Boolean result;
+		try {
+			result = call();
+		} catch (Exception e) {
+			result = false;
+			e.printStackTrace();
 		}
 		return result;
 	}
 
+	public ConversionListener getConversionListener() {
+		return conversionListener;
+	}
+
+	public ChartCheckpoint getCheckpoint() {
+		return checkpoint;
+	}
+
+	/**
+	 * @return charts failed in last conversion, in order
+	 */
+	public List<ChartFailure> getFailures() {
+		return Collections.unmodifiableList(failures);
+	}
+
+	public ChartFragmentCache getFragmentCache() {
+		return fragmentCache;
+	}
+
 	public ChartConfiguration getConfiguration() {
 		return configuration;
 	}
@@ -324,8 +977,91 @@ public class SarfEngine implements Callable<Boolean> {
 		return file;
 	}
 
+	public ForkJoinPool getForkJoinPool() {
+		return forkJoinPool;
+	}
+
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	public boolean isPrecomputedToc() {
+		return precomputedToc;
+	}
+
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	public void setConversionListener(ConversionListener conversionListener) {
+		this.conversionListener = conversionListener == null ? ConversionListener.NO_OP
+				: conversionListener;
+	}
+
+	/**
+	 * @param checkpoint
+	 *            checkpoint to store each rendered chart into, charts already
+	 *            stored by a previous run are not rendered again
+	 */
+	public void setCheckpoint(ChartCheckpoint checkpoint) {
+		this.checkpoint = checkpoint;
+	}
+
+	/**
+	 * @param fragmentCache
+	 *            cache of rendered charts, only used in streaming mode where
+	 *            cached fragments are written as they are
+	 */
+	public void setFragmentCache(ChartFragmentCache fragmentCache) {
+		this.fragmentCache = fragmentCache;
+	}
+
 	public void setFile(File file) {
 		this.file = file;
 	}
 
+	public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+		this.forkJoinPool = forkJoinPool;
+	}
+
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	/**
+	 * @param precomputedToc
+	 *            true to write table of content entries at write time, only
+	 *            applies when charts are supplied up front; engines created by
+	 *            {@link #fromIterator} or {@link #fromStream} always write a
+	 *            TOC field (and log that they do)
+	 */
+	public void setPrecomputedToc(boolean precomputedToc) {
+		this.precomputedToc = precomputedToc;
+	}
+
+	/**
+	 * @param streaming
+	 *            true to stream the document into the file instead of building
+	 *            a package in memory and reuse rendered charts as marshalled
+	 *            fragments; in memory exports (e.g., {@link #toByteArray()})
+	 *            always use the streaming writer
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	/**
+	 * {@link ByteArrayOutputStream} which exposes its internal buffer.
+	 */
+	private static final class DocumentBuffer extends ByteArrayOutputStream {
+
+		private DocumentBuffer() {
+			super(64 * 1024);
+		}
+
+		private ByteBuffer toByteBuffer() {
+			return ByteBuffer.wrap(buf, 0, count).asReadOnlyBuffer();
+		}
+	}
+
 }
@@ -0,0 +1,114 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import com.alphasystem.app.sarfengine.conjugation.model.SarfChart;
+import com.alphasystem.sarfengine.xml.model.ChartConfiguration;
+
+import java.io.File;
+import java.util.SortedSet;
+import java.util.concurrent.*;
+
+/**
+ * Runs independent document jobs side by side with a fixed parallelism limit. Jobs waiting for a worker are held in
+ * a bounded queue, once the queue is full new jobs are rejected with {@link RejectedExecutionException}.
+ * <p>
+ * Each job sorts its own copy of the charts and builds its own {@link SarfEngine}, no state is shared between jobs.
+ * </p>
+ *
+ * @author sali
+ */
+public class SarfEngineBatchExecutor implements AutoCloseable {
+
+    private final ThreadPoolExecutor executor;
+
+    private final SarfEngineService service;
+
+    /**
+     * Creates executor with parallelism equals to number of available processors.
+     *
+     * @param queueCapacity maximum number of jobs waiting for a worker
+     */
+    public SarfEngineBatchExecutor(int queueCapacity) {
+        this(Runtime.getRuntime().availableProcessors(), queueCapacity);
+    }
+
+    /**
+     * @param parallelism   maximum number of jobs running at the same time
+     * @param queueCapacity maximum number of jobs waiting for a worker
+     */
+    public SarfEngineBatchExecutor(int parallelism, int queueCapacity) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be greater than zero");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity must be greater than zero");
+        }
+        executor = new ThreadPoolExecutor(parallelism, parallelism, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), SarfEngineService.threadFactory("sarf-engine-batch"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        service = new SarfEngineService(executor);
+    }
+
+    /**
+     * @param file          destination file
+     * @param configuration chart configuration, if null default configuration will be used
+     * @param charts        charts to convert
+     * @return future of the produced file
+     * @throws RejectedExecutionException if queue is full or executor has been shut down
+     */
+    public CompletableFuture<File> submit(File file, ChartConfiguration configuration, SortedSet<SarfChart> charts) {
+        return submit(SarfEngineHelper.createSarfEngine(file, configuration, charts));
+    }
+
+    /**
+     * @param sarfEngine engine to run
+     * @return future of the produced file
+     * @throws RejectedExecutionException if queue is full or executor has been shut down
+     */
+    public CompletableFuture<File> submit(SarfEngine sarfEngine) {
+        return service.submit(sarfEngine);
+    }
+
+    /**
+     * @return number of jobs currently running
+     */
+    public int getActiveJobCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * @return number of jobs waiting for a worker
+     */
+    public int getQueuedJobCount() {
+        return executor.getQueue().size();
+    }
+
+    public int getParallelism() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Stops accepting new jobs, already submitted jobs will run to completion.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * @param timeout
+     * @param unit
+     * @return true if all jobs have completed
+     * @throws InterruptedException
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public void close() {
+        shutdown();
+    }
+}
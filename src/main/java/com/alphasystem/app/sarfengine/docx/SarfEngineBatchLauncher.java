@@ -0,0 +1,288 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import com.alphasystem.sarfengine.xml.model.ChartConfiguration;
+import com.alphasystem.sarfengine.xml.model.ConjugationTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Command line driver converting many {@link ConjugationTemplate} XML files in a single JVM, one document per template.
+ * <p>
+ * Usage:
+ * <pre>
+ * SarfEngineBatchLauncher [--workers N] [--config chart-configuration.xml] [--output directory] &lt;input&gt;...
+ * </pre>
+ * Each input is either a directory (all <code>*.xml</code> files in it) or a glob, e.g.,
+ * <code>templates/**&#47;*.xml</code>. Globs follow {@link PathMatcher} syntax, where <code>**&#47;</code> requires at
+ * least one directory, i.e., <code>templates/**&#47;*.xml</code> matches templates in sub directories of
+ * <code>templates</code> but not the ones directly in it; use <code>templates/**.xml</code> to match both. Document of
+ * <code>name.xml</code> is <code>name.docx</code>, written next to the template unless an output directory is given.
+ * Templates from different directories having the same name would write the same document into the output
+ * directory, such a run is rejected before anything is converted. Templates whose document is already newer than the
+ * template are skipped. Documents are written into a temporary file first, so an interrupted run never leaves a
+ * partial document which would be skipped by the next run. A template with failed charts fails and its previous
+ * document is kept.
+ * </p>
+ *
+ * @author sali
+ */
+public final class SarfEngineBatchLauncher {
+
+    private static final String TEMPLATE_EXTENSION = ".xml";
+
+    private static final String DOCUMENT_EXTENSION = ".docx";
+
+    private enum Status {
+        CONVERTED, SKIPPED, FAILED
+    }
+
+    private final ChartConfiguration configuration;
+
+    private final File outputDirectory;
+
+    private final int workers;
+
+    private final ConversionMetrics metrics = new ConversionMetrics();
+
+    /**
+     * @param configuration   chart configuration, if null default configuration will be used
+     * @param outputDirectory directory of documents, null to write each document next to its template
+     * @param workers         number of templates converted at the same time
+     */
+    public SarfEngineBatchLauncher(ChartConfiguration configuration, File outputDirectory, int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("workers must be greater than zero");
+        }
+        this.configuration = (configuration == null) ? new ChartConfiguration() : configuration;
+        this.outputDirectory = outputDirectory;
+        this.workers = workers;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int workers = Runtime.getRuntime().availableProcessors();
+        File configurationFile = null;
+        File outputDirectory = null;
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--workers".equals(arg) && i + 1 < args.length) {
+                workers = Integer.parseInt(args[++i]);
+            } else if ("--config".equals(arg) && i + 1 < args.length) {
+                configurationFile = new File(args[++i]);
+            } else if ("--output".equals(arg) && i + 1 < args.length) {
+                outputDirectory = new File(args[++i]);
+            } else if (arg.startsWith("--")) {
+                usage();
+                return;
+            } else {
+                inputs.add(arg);
+            }
+        }
+        if (inputs.isEmpty()) {
+            usage();
+            return;
+        }
+        ChartConfiguration configuration = (configurationFile == null) ? null
+                : ConjugationTemplateReader.readChartConfiguration(configurationFile);
+        if (outputDirectory != null) {
+            Files.createDirectories(outputDirectory.toPath());
+        }
+        List<File> templates = new ArrayList<>();
+        for (String input : inputs) {
+            templates.addAll(findTemplates(input));
+        }
+        boolean success = new SarfEngineBatchLauncher(configuration, outputDirectory, workers).run(templates);
+        if (!success) {
+            System.exit(1);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: SarfEngineBatchLauncher [--workers N] [--config chart-configuration.xml] "
+                + "[--output directory] <directory|glob>...");
+        System.exit(2);
+    }
+
+    /**
+     * @param input directory or glob
+     * @return template files of given input, sorted by path
+     * @throws IOException if input can not be listed
+     */
+    static List<File> findTemplates(String input) throws IOException {
+        Path path = Paths.get(input);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> paths = Files.list(path)) {
+                return paths.filter(SarfEngineBatchLauncher::isTemplate).sorted().map(Path::toFile)
+                        .collect(toList());
+            }
+        }
+        if (Files.isRegularFile(path)) {
+            List<File> files = new ArrayList<>(1);
+            files.add(path.toFile());
+            return files;
+        }
+        // glob, walk from the deepest directory without any glob characters
+        int globIndex = indexOfGlob(input);
+        int separatorIndex = Math.max(input.lastIndexOf('/', globIndex), input.lastIndexOf(File.separatorChar,
+                globIndex));
+        Path baseDirectory = Paths.get(separatorIndex < 0 ? "." : input.substring(0, separatorIndex + 1));
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + input);
+        if (!Files.isDirectory(baseDirectory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> paths = Files.walk(baseDirectory)) {
+            return paths.filter(p -> matcher.matches(separatorIndex < 0 ? baseDirectory.relativize(p) : p))
+                    .filter(SarfEngineBatchLauncher::isTemplate).sorted().map(Path::toFile).collect(toList());
+        }
+    }
+
+    private static int indexOfGlob(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            if ("*?[{".indexOf(input.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return input.length();
+    }
+
+    private static boolean isTemplate(Path path) {
+        return Files.isRegularFile(path) && path.getFileName().toString().endsWith(TEMPLATE_EXTENSION);
+    }
+
+    /**
+     * Converts given templates on <code>workers</code> threads and prints a summary.
+     *
+     * @param templates template files
+     * @return true if no template failed
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public boolean run(List<File> templates) throws InterruptedException {
+        if (!checkDocumentFiles(templates)) {
+            return false;
+        }
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(workers,
+                SarfEngineService.threadFactory("sarf-batch"));
+        int converted = 0;
+        int skipped = 0;
+        int failed = 0;
+        try {
+            List<Future<Status>> futures = new ArrayList<>(templates.size());
+            for (File template : templates) {
+                futures.add(executor.submit(() -> convert(template)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                Status status;
+                try {
+                    status = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    System.err.println(format("Failed to convert %s: %s", templates.get(i), e.getCause()));
+                    status = Status.FAILED;
+                }
+                switch (status) {
+                    case CONVERTED:
+                        converted++;
+                        break;
+                    case SKIPPED:
+                        skipped++;
+                        break;
+                    default:
+                        failed++;
+                        break;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+        System.out.println(format("templates=%s, converted=%s, skipped=%s, failed=%s, charts=%s, bytes=%s, "
+                        + "elapsed=%.2fs, templatesPerSecond=%.2f, chartsPerSecond=%.2f", templates.size(),
+                converted, skipped, failed, metrics.getCharts(), metrics.getBytes(), seconds,
+                (seconds == 0) ? 0 : converted / seconds, (seconds == 0) ? 0 : metrics.getCharts() / seconds));
+        return failed == 0;
+    }
+
+    /**
+     * Checks that no two templates have the same document file, e.g., templates with the same name in different
+     * directories when all documents are written into the output directory.
+     *
+     * @param templates template files
+     * @return true if each template has its own document file
+     */
+    private boolean checkDocumentFiles(List<File> templates) {
+        Map<File, File> templatesByDocument = new HashMap<>(templates.size() * 2);
+        boolean unique = true;
+        for (File template : templates) {
+            File documentFile = getDocumentFile(template).getAbsoluteFile();
+            File other = templatesByDocument.putIfAbsent(documentFile, template);
+            if (other != null && !other.getAbsoluteFile().equals(template.getAbsoluteFile())) {
+                System.err.println(format("Templates %s and %s would both be written into %s", other, template,
+                        documentFile));
+                unique = false;
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * @param templateFile template file
+     * @return document file of given template
+     */
+    File getDocumentFile(File templateFile) {
+        String name = templateFile.getName();
+        String baseName = name.endsWith(TEMPLATE_EXTENSION)
+                ? name.substring(0, name.length() - TEMPLATE_EXTENSION.length()) : name;
+        File directory = (outputDirectory == null) ? templateFile.getAbsoluteFile().getParentFile() : outputDirectory;
+        return new File(directory, baseName + DOCUMENT_EXTENSION);
+    }
+
+    private Status convert(File templateFile) throws Exception {
+        File documentFile = getDocumentFile(templateFile);
+        if (documentFile.exists() && documentFile.lastModified() > templateFile.lastModified()) {
+            return Status.SKIPPED;
+        }
+        ConjugationTemplate template = ConjugationTemplateReader.read(templateFile);
+        File tempFile = new File(documentFile.getParentFile(), documentFile.getName() + ".tmp");
+        SarfEngineHelper helper = new SarfEngineHelper();
+        helper.setConversionListener(metrics);
+        SarfEngine sarfEngine = helper.createSarfEngine(tempFile, configuration, template);
+        if (!sarfEngine.execute()) {
+            Files.deleteIfExists(tempFile.toPath());
+            System.err.println(format("Failed to convert %s", templateFile));
+            return Status.FAILED;
+        }
+        List<ChartFailure> failures = sarfEngine.getFailures();
+        if (!failures.isEmpty()) {
+            // a document missing some of its charts must not replace the previous one
+            Files.deleteIfExists(tempFile.toPath());
+            System.err.println(format("Failed to convert %s, %s chart(s) failed, first failure: %s", templateFile,
+                    failures.size(), failures.get(0)));
+            return Status.FAILED;
+        }
+        Files.move(tempFile.toPath(), documentFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return Status.CONVERTED;
+    }
+
+    public ConversionMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -3,6 +3,7 @@
  */
 package com.alphasystem.app.sarfengine.docx;
 
+import com.alphasystem.app.sarfengine.conjugation.builder.ConjugationBuilder;
 import com.alphasystem.app.sarfengine.conjugation.builder.ConjugationBuilderFactory;
 import com.alphasystem.app.sarfengine.conjugation.model.SarfChart;
 import com.alphasystem.app.sarfengine.conjugation.model.SarfChartComparator;
@@ -10,16 +11,31 @@ import com.alphasystem.app.sarfengine.guice.GuiceSupport;
 import com.alphasystem.arabic.model.ArabicLetterType;
 import com.alphasystem.arabic.model.NamedTemplate;
 import com.alphasystem.sarfengine.xml.model.*;
+import org.docx4j.openpackaging.exceptions.Docx4JException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
+import static com.alphasystem.app.sarfengine.docx.ConversionStage.CONJUGATION;
+import static com.alphasystem.app.sarfengine.docx.ConversionStage.SORTING;
 import static com.alphasystem.sarfengine.xml.model.SortDirective.NONE;
-import static java.util.Collections.synchronizedSortedSet;
+import static java.util.stream.Collectors.toList;
 
 /**
  * @author sali
@@ -29,7 +45,42 @@ public final class SarfEngineHelper {
     @SuppressWarnings("unused")
     private static final Logger LOGGER = LoggerFactory.getLogger(SarfEngineHelper.class);
 
-    private static final ConjugationBuilderFactory BUILDER_FACTORY = GuiceSupport.getInstance().getConjugationBuilderFactory();
+    /**
+     * Lazily created builder factory, Guice injector is only created when the first chart is conjugated (or by
+     * {@link #initialize()}), so that callers which never conjugate do not pay for it.
+     */
+    private static final class BuilderFactoryHolder {
+
+        private static final ConjugationBuilderFactory BUILDER_FACTORY = GuiceSupport.getInstance()
+                .getConjugationBuilderFactory();
+
+        /**
+         * Builder of each conjugating thread, thread safety of the builder is not part of its contract, so a builder is
+         * never shared between threads (e.g., workers of
+         * {@link SarfEngineHelper#addAll(ConjugationTemplate, boolean)}).
+         */
+        private static final ThreadLocal<ConjugationBuilder> BUILDER = ThreadLocal.withInitial(
+                () -> BUILDER_FACTORY.getConjugationBuilder());
+    }
+
+    /**
+     * Creates the conjugation machinery (Guice injector and builder factory) ahead of first conjugation, e.g., on a
+     * background thread during startup.
+     */
+    public static void initialize() {
+        getBuilderFactory();
+    }
+
+    private static ConjugationBuilderFactory getBuilderFactory() {
+        return BuilderFactoryHolder.BUILDER_FACTORY;
+    }
+
+    /**
+     * @return conjugation builder of current thread
+     */
+    private static ConjugationBuilder getConjugationBuilder() {
+        return BuilderFactoryHolder.BUILDER.get();
+    }
 
     /**
      * @param template
@@ -49,7 +100,7 @@ public final class SarfEngineHelper {
                                              ArabicLetterType firstRadical, ArabicLetterType secondRadical,
                                              ArabicLetterType thirdRadical, ArabicLetterType fourthRadical,
                                              List<VerbalNoun> verbalNouns, List<NounOfPlaceAndTime> adverbs) {
-        return BUILDER_FACTORY.getConjugationBuilder().doConjugation(template, translation, removePassiveLine,
+        return getConjugationBuilder().doConjugation(template, translation, removePassiveLine,
                 skipRuleProcessing, firstRadical, secondRadical, thirdRadical, fourthRadical, verbalNouns, adverbs);
     }
 
@@ -75,31 +126,190 @@ public final class SarfEngineHelper {
     }
 
     /**
+     * @param conjugationData
+     * @return
+     */
+    private static SarfChart createSarfChart(ConjugationData conjugationData) {
+        ConjugationConfiguration configuration = conjugationData.getConfiguration();
+        RootLetters rootLetters = conjugationData.getRootLetters();
+        return createSarfChart(conjugationData.getTemplate(), configuration.isRemovePassiveLine(),
+                configuration.isSkipRuleProcessing(), conjugationData.getTranslation(), rootLetters.getFirstRadical(),
+                rootLetters.getSecondRadical(), rootLetters.getThirdRadical(), rootLetters.getFourthRadical(),
+                conjugationData.getVerbalNouns(), conjugationData.getAdverbs());
+    }
+
+    /**
+     * Creates engine for a single document job, charts are sorted into a new set owned by the job.
+     *
+     * @param file
+     * @param configuration
+     * @param charts
+     * @return
+     */
+    static SarfEngine createSarfEngine(File file, ChartConfiguration configuration, SortedSet<SarfChart> charts) {
+        return createSarfEngine(file, configuration, charts, ConversionListener.NO_OP);
+    }
+
+    /**
+     * Creates engine for a single document job, charts are sorted into a new set owned by the job.
+     *
      * @param file
      * @param configuration
      * @param charts
+     * @param conversionListener
+     * @return
      */
-    public synchronized static void execute(File file,
-                                            ChartConfiguration configuration, SortedSet<SarfChart> charts) {
-        SarfChartComparator chartComparator = new SarfChartComparator(
-                configuration.getSortDirective(),
+    static SarfEngine createSarfEngine(File file, ChartConfiguration configuration, SortedSet<SarfChart> charts,
+                                       ConversionListener conversionListener) {
+        ChartConfiguration chartConfiguration = (configuration == null) ? new ChartConfiguration() : configuration;
+        SarfChart[] sarfCharts = sort(chartConfiguration, charts, conversionListener);
+        SarfEngine sarfEngine = new SarfEngine(file, chartConfiguration, sarfCharts);
+        sarfEngine.setConversionListener(conversionListener);
+        return sarfEngine;
+    }
+
+    /**
+     * Sorts given charts into a new array owned by a single job.
+     *
+     * @param configuration
+     * @param charts
+     * @param conversionListener
+     * @return
+     */
+    private static SarfChart[] sort(ChartConfiguration configuration, SortedSet<SarfChart> charts,
+                                    ConversionListener conversionListener) {
+        long start = System.nanoTime();
+        SarfChartComparator chartComparator = new SarfChartComparator(configuration.getSortDirective(),
                 configuration.getSortDirection());
-        SortedSet<SarfChart> sc = synchronizedSortedSet(new TreeSet<>(chartComparator));
+        SortedSet<SarfChart> sc = new TreeSet<>(chartComparator);
         sc.addAll(charts);
-        SarfEngine sarfEngine = new SarfEngine(file, configuration, sc.toArray(new SarfChart[sc.size()]));
-        sarfEngine.execute();
+        SarfChart[] sarfCharts = sc.toArray(new SarfChart[sc.size()]);
+        conversionListener.stageCompleted(SORTING, System.nanoTime() - start);
+        return sarfCharts;
+    }
+
+    /**
+     * Splits sorted charts into volumes and generates each volume concurrently on given service, each volume is a
+     * complete document with its own table of content. Volume files are named after given file, see
+     * {@link VolumeSplitter#getVolumeFile(File, int)}.
+     *
+     * @param file
+     * @param configuration
+     * @param charts
+     * @param splitter
+     * @param service
+     * @param conversionListener
+     * @return future of volume files in order, completes exceptionally if any of the volumes fails
+     */
+    static CompletableFuture<List<File>> submitVolumes(File file, ChartConfiguration configuration,
+                                                       SortedSet<SarfChart> charts, VolumeSplitter splitter,
+                                                       SarfEngineService service,
+                                                       ConversionListener conversionListener) {
+        ChartConfiguration chartConfiguration = (configuration == null) ? new ChartConfiguration() : configuration;
+        List<SarfChart[]> volumes = splitter.split(sort(chartConfiguration, charts, conversionListener));
+        List<CompletableFuture<File>> futures = new ArrayList<>(volumes.size());
+        for (int i = 0; i < volumes.size(); i++) {
+            SarfEngine sarfEngine = new SarfEngine(VolumeSplitter.getVolumeFile(file, i + 1), chartConfiguration,
+                    volumes.get(i));
+            sarfEngine.setConversionListener(conversionListener);
+            futures.add(service.submit(sarfEngine));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]))
+                .thenApply(ignored -> futures.stream().map(CompletableFuture::join).collect(toList()));
+    }
 
+    /**
+     * Creates engine which pulls charts from given stream while writing the document, charts are not sorted and are
+     * written in the order of the stream.
+     *
+     * @param file
+     * @param configuration
+     * @param charts
+     * @param conversionListener
+     * @return
+     */
+    static SarfEngine createSarfEngine(File file, ChartConfiguration configuration, Stream<SarfChart> charts,
+                                       ConversionListener conversionListener) {
+        SarfEngine sarfEngine = SarfEngine.fromStream(file, configuration, charts);
+        sarfEngine.setConversionListener(conversionListener);
+        return sarfEngine;
     }
 
     /**
+     * Writes charts of given stream into given file without materializing them, charts are written in the order of the
+     * stream.
+     *
      * @param file
+     * @param configuration
      * @param charts
      */
-    public synchronized static void execute(File file, SortedSet<SarfChart> charts) {
+    public static void execute(File file, ChartConfiguration configuration, Stream<SarfChart> charts) {
+        createSarfEngine(file, configuration, charts, ConversionListener.NO_OP).execute();
+    }
+
+    /**
+     * @param file
+     * @param configuration
+     * @param charts
+     */
+    public static void execute(File file, ChartConfiguration configuration, SortedSet<SarfChart> charts) {
+        createSarfEngine(file, configuration, charts).execute();
+    }
+
+    /**
+     * @param file
+     * @param charts
+     */
+    public static void execute(File file, SortedSet<SarfChart> charts) {
         execute(file, null, charts);
     }
 
-    private SortedSet<SarfChart> charts;
+    /**
+     * Writes document into given stream, stream is not closed.
+     *
+     * @param outputStream
+     * @param configuration
+     * @param charts
+     * @throws Docx4JException
+     */
+    public static void execute(OutputStream outputStream, ChartConfiguration configuration,
+                               SortedSet<SarfChart> charts) throws Docx4JException {
+        createSarfEngine(null, configuration, charts).convert(outputStream);
+    }
+
+    /**
+     * Writes document into given channel, channel is not closed.
+     *
+     * @param channel
+     * @param configuration
+     * @param charts
+     * @throws Docx4JException
+     */
+    public static void execute(WritableByteChannel channel, ChartConfiguration configuration,
+                               SortedSet<SarfChart> charts) throws Docx4JException {
+        createSarfEngine(null, configuration, charts).convert(channel);
+    }
+
+    /**
+     * @param configuration
+     * @param charts
+     * @return bytes of the document
+     * @throws Docx4JException
+     */
+    public static byte[] toByteArray(ChartConfiguration configuration, SortedSet<SarfChart> charts)
+            throws Docx4JException {
+        return createSarfEngine(null, configuration, charts).toByteArray();
+    }
+
+    /**
+     * Charts added so far, guarded by {@link #chartsLock}. A lock is used instead of <code>synchronized</code> so that
+     * virtual threads adding charts or taking snapshots do not pin their carrier threads.
+     */
+    private TreeSet<SarfChart> charts;
+
+    private final ReentrantLock chartsLock = new ReentrantLock();
+
+    private ConversionListener conversionListener = ConversionListener.NO_OP;
 
     public SarfEngineHelper() {
         this(null);
@@ -124,8 +334,11 @@ public final class SarfEngineHelper {
     public void add(NamedTemplate template, boolean removePassiveLine, boolean skipRuleProcessing, String translation,
                     ArabicLetterType firstRadical, ArabicLetterType secondRadical, ArabicLetterType thirdRadical,
                     ArabicLetterType fourthRadical, List<VerbalNoun> verbalNouns, List<NounOfPlaceAndTime> adverbs) {
-        charts.add(createSarfChart(template, removePassiveLine, skipRuleProcessing, translation, firstRadical,
-                secondRadical, thirdRadical, fourthRadical, verbalNouns, adverbs));
+        long start = System.nanoTime();
+        SarfChart sarfChart = createSarfChart(template, removePassiveLine, skipRuleProcessing, translation,
+                firstRadical, secondRadical, thirdRadical, fourthRadical, verbalNouns, adverbs);
+        conversionListener.stageCompleted(CONJUGATION, System.nanoTime() - start);
+        addChart(sarfChart);
     }
 
     /**
@@ -163,36 +376,456 @@ public final class SarfEngineHelper {
      * @param template
      */
     public void addAll(ConjugationTemplate template) {
+        addAll(template, false);
+    }
+
+    /**
+     * @param template
+     * @param parallel if true then entries will be conjugated in parallel on common fork-join pool, conjugated charts
+     *                 are added in the same order as the sequential path. Each worker thread conjugates with its own
+     *                 builder.
+     */
+    public void addAll(ConjugationTemplate template, boolean parallel) {
         List<ConjugationData> data = template.getData();
-        for (ConjugationData cd : data) {
-            ConjugationConfiguration configuration = cd.getConfiguration();
-            RootLetters rootLetters = cd.getRootLetters();
-            add(cd.getTemplate(), configuration.isRemovePassiveLine(), configuration.isSkipRuleProcessing(),
-                    cd.getTranslation(), rootLetters.getFirstRadical(), rootLetters.getSecondRadical(),
-                    rootLetters.getThirdRadical(), rootLetters.getFourthRadical(), cd.getVerbalNouns(), cd.getAdverbs());
+        if (!parallel || data.size() <= 1) {
+            for (ConjugationData cd : data) {
+                addChart(conjugate(cd));
+            }
+            return;
         }
+        List<SarfChart> results = data.parallelStream().map(this::conjugate).collect(toList());
+        chartsLock.lock();
+        try {
+            charts.addAll(results);
+        } finally {
+            chartsLock.unlock();
+        }
+    }
+
+    /**
+     * @param sarfChart chart to add, conjugated outside of the lock
+     */
+    private void addChart(SarfChart sarfChart) {
+        chartsLock.lock();
+        try {
+            charts.add(sarfChart);
+        } finally {
+            chartsLock.unlock();
+        }
+    }
+
+    /**
+     * Returns lazy stream of charts of given template, each chart is conjugated when it is pulled from the stream, i.e.,
+     * while previous charts are being rendered. Charts are not added to this helper.
+     *
+     * @param template
+     * @return stream of charts in the order of template data
+     */
+    public Stream<SarfChart> stream(ConjugationTemplate template) {
+        return template.getData().stream().map(this::conjugate);
     }
 
     /**
+     * Conjugates and writes charts of given template one at a time without holding all charts in memory. If the
+     * configuration asks for sorting then charts must be materialized, in that case charts are sorted before writing.
+     *
      * @param file
+     * @param configuration
+     * @param template
+     * @return true if conversion was successful
      */
-    public synchronized void execute(File file) {
-        execute(file, new ChartConfiguration(), charts);
+    public boolean execute(File file, ChartConfiguration configuration, ConjugationTemplate template) {
+        return createSarfEngine(file, configuration, template).execute();
     }
 
     /**
+     * Creates engine of {@link #execute(File, ChartConfiguration, ConjugationTemplate)}, e.g., for callers which need
+     * the failures of the conversion.
+     *
      * @param file
      * @param configuration
+     * @param template
+     * @return engine writing charts of given template into given file
      */
-    public synchronized void execute(File file, ChartConfiguration configuration) {
-        execute(file, configuration, charts);
+    SarfEngine createSarfEngine(File file, ChartConfiguration configuration, ConjugationTemplate template) {
+        ChartConfiguration chartConfiguration = (configuration == null) ? new ChartConfiguration() : configuration;
+        SortDirective sortDirective = chartConfiguration.getSortDirective();
+        if (sortDirective == null || NONE.equals(sortDirective)) {
+            return createSarfEngine(file, chartConfiguration, stream(template), conversionListener);
+        }
+        SortedSet<SarfChart> sc = new TreeSet<>(new SarfChartComparator(sortDirective,
+                chartConfiguration.getSortDirection()));
+        stream(template).forEach(sc::add);
+        return createSarfEngine(file, chartConfiguration, sc, conversionListener);
     }
 
     /**
+     * Workers of {@link #executePipelined(File, ChartConfiguration, ConjugationTemplate)}, shared by all helpers and
+     * created on first use.
+     */
+    private static final class PipelineExecutorsHolder {
+
+        private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+        private static final ExecutorService CONJUGATION_EXECUTOR = Executors.newFixedThreadPool(PARALLELISM,
+                SarfEngineService.threadFactory("sarf-conjugation"));
+
+        private static final ForkJoinPool RENDERING_POOL = new ForkJoinPool(PARALLELISM);
+    }
+
+    /**
+     * Conjugates, renders and writes charts of given template as a pipeline on shared workers, one conjugation thread
+     * and one rendering thread per available processor, see
+     * {@link #executePipelined(File, ChartConfiguration, ConjugationTemplate, Executor, ForkJoinPool)}.
+     *
+     * @param file
+     * @param configuration
+     * @param template
+     * @return true if conversion was successful
+     */
+    public boolean executePipelined(File file, ChartConfiguration configuration, ConjugationTemplate template) {
+        return executePipelined(file, configuration, template, PipelineExecutorsHolder.CONJUGATION_EXECUTOR,
+                PipelineExecutorsHolder.RENDERING_POOL);
+    }
+
+    /**
+     * Conjugates, renders and writes charts of given template as a pipeline, each stage runs on its own workers:
+     * <ol>
+     * <li>conjugation on <code>conjugationExecutor</code>,</li>
+     * <li>table rendering on <code>renderingPool</code>,</li>
+     * <li>serialization on the calling thread, document is streamed into the file.</li>
+     * </ol>
+     * Each stage works at most <code>renderingPool.getParallelism() * 4</code> charts ahead of the next one, so memory
+     * stays bounded and total time approaches the time of the slowest stage. If the configuration asks for sorting
+     * then all charts are conjugated before rendering starts. An entry which fails to conjugate is left out and reported
+     * to the conversion listener as a {@link ChartFailure}, like a chart which fails to render, the rest of the book is
+     * still written. Executors belong to the caller and are not shut down, so they can be shared by many conversions.
+     *
+     * @param file
+     * @param configuration
+     * @param template
+     * @param conjugationExecutor workers of conjugation stage
+     * @param renderingPool       workers of rendering stage
+     * @return true if conversion was successful
+     */
+    public boolean executePipelined(File file, ChartConfiguration configuration, ConjugationTemplate template,
+                                    Executor conjugationExecutor, ForkJoinPool renderingPool) {
+        if (conjugationExecutor == null || renderingPool == null) {
+            throw new NullPointerException("executors cannot be null");
+        }
+        ChartConfiguration chartConfiguration = (configuration == null) ? new ChartConfiguration() : configuration;
+        int capacity = renderingPool.getParallelism() * 4;
+        PipelineIterator<ConjugationData, SarfChart> charts = new PipelineIterator<>(template.getData().iterator(),
+                this::conjugateOrFail, conjugationExecutor, capacity);
+        try {
+            SortDirective sortDirective = chartConfiguration.getSortDirective();
+            SarfEngine sarfEngine;
+            if (sortDirective == null || NONE.equals(sortDirective)) {
+                sarfEngine = SarfEngine.fromIterator(file, chartConfiguration, charts);
+                sarfEngine.setConversionListener(conversionListener);
+            } else {
+                SortedSet<SarfChart> sc = new TreeSet<>(new SarfChartComparator(sortDirective,
+                        chartConfiguration.getSortDirection()));
+                List<SarfChart> failed = new ArrayList<>();
+                charts.forEachRemaining(sarfChart -> {
+                    if (sarfChart instanceof FailedSarfChart) {
+                        failed.add(sarfChart);
+                    } else {
+                        sc.add(sarfChart);
+                    }
+                });
+                // failed charts have no content to sort by, they are reported after the sorted ones
+                List<SarfChart> sorted = new ArrayList<>(Arrays.asList(sort(chartConfiguration, sc,
+                        conversionListener)));
+                sorted.addAll(failed);
+                sarfEngine = new SarfEngine(file, chartConfiguration, sorted.toArray(new SarfChart[sorted.size()]));
+                sarfEngine.setConversionListener(conversionListener);
+            }
+            sarfEngine.setParallel(true);
+            sarfEngine.setForkJoinPool(renderingPool);
+            sarfEngine.setStreaming(true);
+            return sarfEngine.execute();
+        } finally {
+            // conjugation of charts which will never be written must not keep shared workers busy
+            charts.cancel();
+        }
+    }
+
+    /**
+     * @param conjugationData
+     * @return conjugated chart, or a {@link FailedSarfChart} carrying the failure so that a single entry does not abort
+     * the whole pipeline
+     */
+    private SarfChart conjugateOrFail(ConjugationData conjugationData) {
+        try {
+            return conjugate(conjugationData);
+        } catch (RuntimeException e) {
+            return new FailedSarfChart(e);
+        }
+    }
+
+    /**
+     * @param conjugationData
+     * @return conjugated chart, conjugation stage is reported to the listener of this helper
+     */
+    private SarfChart conjugate(ConjugationData conjugationData) {
+        long start = System.nanoTime();
+        SarfChart sarfChart = createSarfChart(conjugationData);
+        conversionListener.stageCompleted(CONJUGATION, System.nanoTime() - start);
+        return sarfChart;
+    }
+
+    /**
+     * @param file
+     */
+    public void execute(File file) {
+        execute(file, new ChartConfiguration());
+    }
+
+    /**
+     * @param file
+     * @param configuration
+     */
+    public void execute(File file, ChartConfiguration configuration) {
+        createSarfEngine(file, configuration, snapshot(), conversionListener).execute();
+    }
+
+    /**
+     * Writes document into given stream, stream is not closed.
+     *
+     * @param outputStream
+     * @param configuration
+     * @throws Docx4JException
+     */
+    public void execute(OutputStream outputStream, ChartConfiguration configuration) throws Docx4JException {
+        createSarfEngine(null, configuration, snapshot(), conversionListener).convert(outputStream);
+    }
+
+    /**
+     * Writes document into given channel, channel is not closed.
+     *
+     * @param channel
+     * @param configuration
+     * @throws Docx4JException
+     */
+    public void execute(WritableByteChannel channel, ChartConfiguration configuration) throws Docx4JException {
+        createSarfEngine(null, configuration, snapshot(), conversionListener).convert(channel);
+    }
+
+    /**
+     * @param configuration
+     * @return bytes of the document
+     * @throws Docx4JException
+     */
+    public byte[] toByteArray(ChartConfiguration configuration) throws Docx4JException {
+        return createSarfEngine(null, configuration, snapshot(), conversionListener).toByteArray();
+    }
+
+    /**
+     * Writes charts into given file keeping an on-disk checkpoint of rendered charts in given directory. If a previous
+     * run of the same job was interrupted (e.g., JVM died) then charts completed by that run are read back from the
+     * checkpoint and only unfinished charts are rendered. Checkpoint is cleared once the document has been written
+     * without any failed chart.
+     *
+     * @param file
+     * @param configuration
+     * @param checkpointDirectory directory of the checkpoint, must be owned by this job
+     * @return charts failed to render, these charts are left out of the document and can be retried on their own
+     * @throws IOException if checkpoint can not be created or document could not be written
+     */
+    public List<ChartFailure> executeWithCheckpoint(File file, ChartConfiguration configuration,
+                                                    File checkpointDirectory) throws IOException {
+        ChartCheckpoint checkpoint = new ChartCheckpoint(checkpointDirectory);
+        SarfEngine sarfEngine = createSarfEngine(file, configuration, snapshot(), conversionListener);
+        sarfEngine.setCheckpoint(checkpoint);
+        if (!sarfEngine.execute()) {
+            throw new IOException("Unable to write document: " + file);
+        }
+        List<ChartFailure> failures = sarfEngine.getFailures();
+        if (failures.isEmpty()) {
+            checkpoint.clear();
+        }
+        return failures;
+    }
+
+    /**
+     * Regenerates a previously generated book from given (updated) template. Rendered charts of each build are kept in
+     * given store directory, which acts as the manifest of the book. Only entries changed since the previous build are
+     * conjugated and rendered again, all other charts are spliced into the document from the store without being parsed,
+     * only their title bookmark and paragraph and revision ids are resolved for their position in the new build. The
+     * document is always streamed. Entries removed from the template are removed from the store.
+     * <p>
+     * If the configuration asks for sorting then all entries are conjugated (order of charts depends on their content)
+     * but only changed charts are rendered again.
+     * </p>
+     *
+     * @param file
+     * @param configuration
+     * @param template       updated template
+     * @param storeDirectory directory of rendered charts of the book, must be owned by this book
+     * @return charts failed to render
+     * @throws IOException if store can not be accessed or document could not be written
+     */
+    public List<ChartFailure> executeIncremental(File file, ChartConfiguration configuration,
+                                                 ConjugationTemplate template, File storeDirectory)
+            throws IOException {
+        ChartConfiguration chartConfiguration = (configuration == null) ? new ChartConfiguration() : configuration;
+        ChartCheckpoint store = new ChartCheckpoint(storeDirectory);
+        List<ConjugationData> data = template.getData();
+        List<String> keys = new ArrayList<>(data.size());
+        SortDirective sortDirective = chartConfiguration.getSortDirective();
+        SarfEngine sarfEngine;
+        if (sortDirective == null || NONE.equals(sortDirective)) {
+            Stream<SarfChart> charts = data.stream().map(conjugationData -> {
+                String key = key(conjugationData, chartConfiguration);
+                keys.add(key);
+                ChartFragment fragment = store.get(key);
+                return (fragment == null) ? new KeyedSarfChart(key, conjugate(conjugationData))
+                        : new KeyedSarfChart(key, fragment);
+            });
+            sarfEngine = createSarfEngine(file, chartConfiguration, charts, conversionListener);
+        } else {
+            SortedSet<SarfChart> sc = new TreeSet<>(new SarfChartComparator(sortDirective,
+                    chartConfiguration.getSortDirection()));
+            data.forEach(conjugationData -> sc.add(conjugate(conjugationData)));
+            sc.forEach(sarfChart -> {
+                String key = ChartFragmentCache.key(sarfChart, chartConfiguration);
+                if (key != null) {
+                    keys.add(key);
+                }
+            });
+            sarfEngine = createSarfEngine(file, chartConfiguration, sc, conversionListener);
+        }
+        sarfEngine.setCheckpoint(store);
+        // in package mode every stored chart would be unmarshalled again
+        sarfEngine.setStreaming(true);
+        if (!sarfEngine.execute()) {
+            throw new IOException("Unable to write document: " + file);
+        }
+        store.retainAll(keys);
+        return sarfEngine.getFailures();
+    }
+
+    /**
+     * Key of given entry, derived from all the inputs of conjugation and the configuration flags affecting the
+     * rendered tables.
+     *
+     * @param conjugationData
+     * @param configuration
      * @return
      */
+    private static String key(ConjugationData conjugationData, ChartConfiguration configuration) {
+        StringBuilder builder = new StringBuilder(128).append("data:")
+                .append(configuration.isOmitAbbreviatedConjugation() ? '1' : '0')
+                .append(configuration.isOmitDetailedConjugation() ? '1' : '0')
+                .append(configuration.isOmitTitle() ? '1' : '0')
+                .append(configuration.isOmitHeader() ? '1' : '0');
+        ConjugationConfiguration conjugationConfiguration = conjugationData.getConfiguration();
+        if (conjugationConfiguration != null) {
+            builder.append(conjugationConfiguration.isRemovePassiveLine() ? '1' : '0')
+                    .append(conjugationConfiguration.isSkipRuleProcessing() ? '1' : '0');
+        }
+        append(builder, conjugationData.getTemplate());
+        RootLetters rootLetters = conjugationData.getRootLetters();
+        if (rootLetters != null) {
+            append(builder, rootLetters.getFirstRadical());
+            append(builder, rootLetters.getSecondRadical());
+            append(builder, rootLetters.getThirdRadical());
+            append(builder, rootLetters.getFourthRadical());
+        }
+        append(builder, conjugationData.getTranslation());
+        append(builder, conjugationData.getVerbalNouns());
+        append(builder, conjugationData.getAdverbs());
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, Object value) {
+        builder.append('\u0000');
+        if (value != null) {
+            builder.append(value);
+        }
+    }
+
+    /**
+     * Writes charts into volumes, volumes are generated concurrently on shared executor of {@link SarfEngineService}.
+     *
+     * @param file          file of the book, volumes are named after this file, e.g., <code>book-vol001.docx</code>
+     * @param configuration
+     * @param splitter      splitter defining size of each volume
+     * @return future of volume files in order
+     */
+    public CompletableFuture<List<File>> submitVolumes(File file, ChartConfiguration configuration,
+                                                       VolumeSplitter splitter) {
+        return submitVolumes(file, configuration, snapshot(), splitter, new SarfEngineService(), conversionListener);
+    }
+
+    /**
+     * Submits document job to given service, e.g., {@link SarfEngineService#virtualThreads()} to run each job on its
+     * own virtual thread.
+     *
+     * @param service
+     * @param file
+     * @param configuration
+     * @return future of the produced file
+     */
+    public CompletableFuture<File> submit(SarfEngineService service, File file, ChartConfiguration configuration) {
+        return service.submit(createSarfEngine(file, configuration, snapshot(), conversionListener));
+    }
+
+    /**
+     * Submits in memory document job to given service.
+     *
+     * @param service
+     * @param configuration
+     * @return future of the document bytes
+     */
+    public CompletableFuture<byte[]> submitForBytes(SarfEngineService service, ChartConfiguration configuration) {
+        return service.submitForBytes(createSarfEngine(null, configuration, snapshot(), conversionListener));
+    }
+
+    /**
+     * Submits document job to given batch executor.
+     *
+     * @param batchExecutor
+     * @param file
+     * @param configuration
+     * @return future of the produced file
+     * @throws java.util.concurrent.RejectedExecutionException if queue of batch executor is full
+     */
+    public CompletableFuture<File> submit(SarfEngineBatchExecutor batchExecutor, File file,
+                                          ChartConfiguration configuration) {
+        return batchExecutor.submit(createSarfEngine(file, configuration, snapshot(), conversionListener));
+    }
+
+    /**
+     * @return copy of the charts added so far, later changes of this helper are not reflected in the copy
+     */
     public SortedSet<SarfChart> getCharts() {
-        return charts;
+        return snapshot();
+    }
+
+    public ConversionListener getConversionListener() {
+        return conversionListener;
+    }
+
+    /**
+     * @param conversionListener listener to receive timings of conjugation, sorting and rendering of documents
+     *                           produced by this helper
+     */
+    public void setConversionListener(ConversionListener conversionListener) {
+        this.conversionListener = (conversionListener == null) ? ConversionListener.NO_OP : conversionListener;
+    }
+
+    /**
+     * @return copy of current charts, owned by a single job
+     */
+    private SortedSet<SarfChart> snapshot() {
+        chartsLock.lock();
+        try {
+            return new TreeSet<>(charts);
+        } finally {
+            chartsLock.unlock();
+        }
     }
 
     /**
@@ -200,6 +833,6 @@ public final class SarfEngineHelper {
      */
     private void init(SarfChartComparator comparator) {
         SarfChartComparator c = comparator == null ? new SarfChartComparator(NONE) : comparator;
-        charts = synchronizedSortedSet(new TreeSet<>(c));
+        charts = new TreeSet<>(c);
     }
 }
@@ -0,0 +1,160 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import com.alphasystem.sarfengine.xml.model.ChartConfiguration;
+import com.alphasystem.sarfengine.xml.model.ConjugationTemplate;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Startup optimized entry point for short lived (command line or serverless) invocations converting a single template.
+ * <p>
+ * Expensive one time initialization, i.e., Guice injector of conjugation builders and JAXB contexts with the base
+ * document package, is started on background threads as soon as the JVM starts and overlaps with reading the
+ * template, the base document package keeps being prepared while charts are conjugated. Failure of a background
+ * initialization is thrown by the run itself. Nothing is initialized which the run does not need.
+ * </p>
+ * <p>
+ * Usage: <code>java -cp ... com.alphasystem.app.sarfengine.docx.SarfEngineLauncher template.xml output.docx</code>
+ * </p>
+ * <p>
+ * Startup can be further reduced with a class data sharing archive (JDK 13+), created by a training run:
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=sarf-engine.jsa -cp ... SarfEngineLauncher sample.xml sample.docx
+ * java -XX:SharedArchiveFile=sarf-engine.jsa -cp ... SarfEngineLauncher template.xml output.docx
+ * </pre>
+ * Archive must be recreated whenever class path changes.
+ * </p>
+ *
+ * @author sali
+ */
+public final class SarfEngineLauncher {
+
+    private SarfEngineLauncher() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: SarfEngineLauncher <template.xml> <output.docx>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        File outputFile = new File(args[1]);
+        run(new File(args[0]), outputFile, new ChartConfiguration());
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long sinceStartMillis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.out.println(format("Written %s in %s ms (%s ms since JVM start)", outputFile, durationMillis,
+                sinceStartMillis));
+    }
+
+    /**
+     * Reads given template and converts it into given file, initialization is overlapped with reading the template.
+     *
+     * @param templateFile  template file
+     * @param outputFile    destination file
+     * @param configuration chart configuration
+     * @throws Exception if template can not be read, initialization failed or document can not be written
+     */
+    public static void run(File templateFile, File outputFile, ChartConfiguration configuration) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2, SarfEngineService.threadFactory("sarf-startup"));
+        try {
+            // conjugation machinery is initialized in the background only while the template is being read
+            Future<?> conjugationWarmUp = executor.submit(() -> {
+                SarfEngineHelper.initialize();
+                return null;
+            });
+            Future<?> packageWarmUp = warmUpPackage(executor);
+            ConjugationTemplate template = ConjugationTemplateReader.read(templateFile);
+            await(conjugationWarmUp);
+            convert(template, outputFile, configuration, packageWarmUp);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Converts given template into given file, document package is prepared in the background while charts are
+     * conjugated.
+     *
+     * @param template      template to convert
+     * @param outputFile    destination file
+     * @param configuration chart configuration
+     * @throws Exception if initialization failed or document can not be written
+     */
+    public static void run(ConjugationTemplate template, File outputFile, ChartConfiguration configuration)
+            throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(SarfEngineService.threadFactory("sarf-startup"));
+        try {
+            Future<?> packageWarmUp = warmUpPackage(executor);
+            // nothing else to do on this thread before conjugation, so conjugation machinery is initialized here
+            SarfEngineHelper.initialize();
+            convert(template, outputFile, configuration, packageWarmUp);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Starts initialization of JAXB machinery and the base document package.
+     *
+     * @param executor
+     * @return future completed once document package is ready
+     */
+    private static Future<?> warmUpPackage(ExecutorService executor) {
+        return executor.submit(() -> {
+            BasePackage.initialize();
+            return null;
+        });
+    }
+
+    /**
+     * Waits for given initialization, failure of the initialization is thrown on the calling thread.
+     *
+     * @param warmUp
+     * @throws Exception cause of the failure
+     */
+    private static void await(Future<?> warmUp) throws Exception {
+        try {
+            warmUp.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Conjugates charts of given template on the calling thread, conjugation machinery must be initialized.
+     *
+     * @param template
+     * @param outputFile
+     * @param configuration
+     * @param packageWarmUp
+     * @throws Exception
+     */
+    private static void convert(ConjugationTemplate template, File outputFile, ChartConfiguration configuration,
+                                Future<?> packageWarmUp) throws Exception {
+        SarfEngineHelper helper = new SarfEngineHelper();
+        // conjugation runs on this thread while document package is being prepared
+        helper.addAll(template);
+        await(packageWarmUp);
+        SarfEngine sarfEngine = SarfEngineHelper.createSarfEngine(outputFile, configuration, helper.getCharts());
+        sarfEngine.setStreaming(true);
+        sarfEngine.convert();
+    }
+}
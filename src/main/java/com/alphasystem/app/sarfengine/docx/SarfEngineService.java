@@ -0,0 +1,272 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.String.format;
+
+/**
+ * Runs {@link SarfEngine} conversions asynchronously on a long-lived {@link Executor}.
+ * <p>
+ * The executor can be shared by the whole application or supplied by the caller, e.g.,
+ * <code>Executors.newVirtualThreadPerTaskExecutor()</code> on runtimes supporting virtual threads. Each job is
+ * returned as {@link CompletableFuture}, cancelling the future or exceeding the job timeout interrupts the thread
+ * running the conversion, engine stops at the next chart boundary.
+ * </p>
+ *
+ * @author sali
+ */
+public class SarfEngineService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SarfEngineService.class);
+
+    private static final ThreadFactory THREAD_FACTORY = threadFactory("sarf-engine");
+
+    /**
+     * Lazily created shared executor and timer, shared executor runs one job per available processor, further jobs
+     * are queued.
+     */
+    private static class Shared {
+
+        private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), THREAD_FACTORY);
+
+        private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(
+                THREAD_FACTORY);
+    }
+
+    /**
+     * Lazily created virtual thread per task executor, null if runtime does not support virtual threads.
+     */
+    private static class VirtualThreads {
+
+        private static final ExecutorService EXECUTOR = newVirtualThreadPerTaskExecutor();
+
+        private static ExecutorService newVirtualThreadPerTaskExecutor() {
+            try {
+                Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) method.invoke(null);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // virtual threads are not available (Java 20 or older)
+                return null;
+            }
+        }
+    }
+
+    private final Executor executor;
+
+    /**
+     * Creates service using shared executor.
+     */
+    public SarfEngineService() {
+        this(Shared.EXECUTOR);
+    }
+
+    /**
+     * @param executor executor to run conversions, executor is owned by caller and never shut down by this service
+     */
+    public SarfEngineService(Executor executor) {
+        if (executor == null) {
+            throw new NullPointerException("executor cannot be null");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Creates service which runs each job on its own virtual thread, number of concurrent jobs is then limited only by
+     * CPU and memory. Creation of the base package ({@link BasePackage}) and the chart set of {@link SarfEngineHelper}
+     * use locks instead of monitors, so jobs waiting for them do not pin their carrier threads. Other code paths, in
+     * particular docx4j and JAXB internals, have not been audited for blocking while holding a monitor. On runtimes without virtual threads, service falls back to
+     * the shared executor and logs a warning, callers which need virtual threads should check
+     * {@link #isVirtualThreadsSupported()} first.
+     *
+     * @return service running jobs on virtual threads when available
+     * @see #isVirtualThreadsSupported()
+     */
+    public static SarfEngineService virtualThreads() {
+        ExecutorService executor = VirtualThreads.EXECUTOR;
+        if (executor == null) {
+            LOGGER.warn("Virtual threads are not supported by this runtime, using shared executor instead.");
+            return new SarfEngineService();
+        }
+        return new SarfEngineService(executor);
+    }
+
+    /**
+     * @return true if runtime supports virtual threads
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return VirtualThreads.EXECUTOR != null;
+    }
+
+    /**
+     * Converts charts into the file of given engine.
+     *
+     * @param sarfEngine engine to run
+     * @return future of the produced file
+     */
+    public CompletableFuture<File> submit(SarfEngine sarfEngine) {
+        return submit(sarfEngine, 0, null);
+    }
+
+    /**
+     * Converts charts into the file of given engine.
+     *
+     * @param sarfEngine engine to run
+     * @param timeout    maximum time to run the job, zero or negative for no timeout
+     * @param unit       unit of timeout
+     * @return future of the produced file
+     */
+    public CompletableFuture<File> submit(SarfEngine sarfEngine, long timeout, TimeUnit unit) {
+        return execute(() -> {
+            sarfEngine.convert();
+            return sarfEngine.getFile();
+        }, timeout, unit);
+    }
+
+    /**
+     * Converts charts into an in memory document.
+     *
+     * @param sarfEngine engine to run
+     * @return future of the document bytes
+     */
+    public CompletableFuture<byte[]> submitForBytes(SarfEngine sarfEngine) {
+        return submitForBytes(sarfEngine, 0, null);
+    }
+
+    /**
+     * Converts charts into an in memory document.
+     *
+     * @param sarfEngine engine to run
+     * @param timeout    maximum time to run the job, zero or negative for no timeout
+     * @param unit       unit of timeout
+     * @return future of the document bytes
+     */
+    public CompletableFuture<byte[]> submitForBytes(SarfEngine sarfEngine, long timeout, TimeUnit unit) {
+        return execute(sarfEngine::toByteArray, timeout, unit);
+    }
+
+    /**
+     * Runs given job.
+     *
+     * @param callable job to run
+     * @param timeout  maximum time to run the job, zero or negative for no timeout
+     * @param unit     unit of timeout
+     * @param <T>      type of result
+     * @return future of result
+     * @throws RejectedExecutionException if executor does not accept the job
+     */
+    public <T> CompletableFuture<T> execute(Callable<T> callable, long timeout, TimeUnit unit) {
+        Job<T> job = new Job<>(callable);
+        executor.execute(job);
+        // timer is only started once the job has been accepted
+        if (timeout > 0) {
+            ScheduledFuture<?> timer = Shared.TIMER.schedule(() -> job.timeout(timeout, unit), timeout, unit);
+            job.whenComplete((result, throwable) -> timer.cancel(false));
+        }
+        return job;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @param namePrefix prefix of thread names
+     * @return factory creating daemon threads
+     */
+    static ThreadFactory threadFactory(String namePrefix) {
+        AtomicInteger threadCount = new AtomicInteger(0);
+        return runnable -> {
+            Thread thread = new Thread(runnable, format("%s-%s", namePrefix, threadCount.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A {@link CompletableFuture} which runs the given callable and interrupts the running thread on cancellation.
+     * <p>
+     * Runner is set, read and cleared under a lock, so the thread is never interrupted once it has left this job,
+     * i.e., while it is already running the next job of a pool.
+     * </p>
+     *
+     * @param <T> type of result
+     */
+    private static final class Job<T> extends CompletableFuture<T> implements Runnable {
+
+        private final Callable<T> callable;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private Thread runner;
+
+        private Job(Callable<T> callable) {
+            this.callable = callable;
+        }
+
+        @Override
+        public void run() {
+            lock.lock();
+            try {
+                if (isDone()) {
+                    return;
+                }
+                runner = Thread.currentThread();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                complete(callable.call());
+            } catch (Throwable e) {
+                completeExceptionally(e);
+            } finally {
+                lock.lock();
+                try {
+                    runner = null;
+                    if (isCompletedExceptionally()) {
+                        // clear interrupt raised by cancel or timeout so that pooled thread can be reused
+                        Thread.interrupted();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                interruptRunner();
+            }
+            return cancelled;
+        }
+
+        private void timeout(long timeout, TimeUnit unit) {
+            if (completeExceptionally(new TimeoutException(format("Job timed out after %s %s", timeout, unit)))) {
+                interruptRunner();
+            }
+        }
+
+        private void interruptRunner() {
+            lock.lock();
+            try {
+                if (runner != null) {
+                    runner.interrupt();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
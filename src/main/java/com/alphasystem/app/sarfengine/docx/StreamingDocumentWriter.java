@@ -0,0 +1,194 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import org.docx4j.Docx4J;
+import org.docx4j.jaxb.Context;
+import org.docx4j.jaxb.NamespacePrefixMapperUtils;
+import org.docx4j.openpackaging.exceptions.Docx4JException;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import java.io.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes a word document directly into a zip stream, contents of <code>word/document.xml</code> are marshalled as
+ * they are written, so that only one chart needs to be kept in memory at any time.
+ * <p>
+ * All other parts (styles, settings, theme etc.) are copied from a skeleton package, the skeleton must not contain
+ * any body content other than the final section properties.
+ * </p>
+ *
+ * @author sali
+ */
+public class StreamingDocumentWriter implements BodyWriter, Closeable {
+
+    private static final String DOCUMENT_PART_NAME = "word/document.xml";
+
+    private static final Pattern BODY_START_PATTERN = Pattern.compile("<(\\w+:)?body(\\s[^>]*)?>");
+
+    private static final Pattern EMPTY_BODY_PATTERN = Pattern.compile("<(\\w+:)?body(\\s[^>]*)?/>");
+
+    private final ZipInputStream skeleton;
+
+    private final ZipOutputStream zipOutputStream;
+
+    private final OutputStream documentStream;
+
+    private final Marshaller marshaller;
+
+    private String documentSuffix;
+
+    private boolean closed;
+
+    /**
+     * @param wordprocessingMLPackage skeleton package
+     * @param outputStream            destination stream, stream is not closed by this writer
+     * @throws Docx4JException if skeleton package can not be saved or document part can not be opened
+     */
+    public StreamingDocumentWriter(WordprocessingMLPackage wordprocessingMLPackage, OutputStream outputStream)
+            throws Docx4JException {
+        this(toByteArray(wordprocessingMLPackage), outputStream);
+    }
+
+    /**
+     * @param skeleton     serialized skeleton package
+     * @param outputStream destination stream, stream is not closed by this writer
+     * @throws Docx4JException if document part can not be opened
+     */
+    public StreamingDocumentWriter(byte[] skeleton, OutputStream outputStream) throws Docx4JException {
+        this.skeleton = new ZipInputStream(new ByteArrayInputStream(skeleton));
+        this.zipOutputStream = new ZipOutputStream(outputStream);
+        // marshaller must not close the zip stream
+        this.documentStream = new NonClosingOutputStream(zipOutputStream);
+        try {
+            this.marshaller = Context.jc.createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            marshaller.setProperty(Marshaller.JAXB_ENCODING, UTF_8.name());
+            NamespacePrefixMapperUtils.setProperty(marshaller, NamespacePrefixMapperUtils.getPrefixMapper());
+            openDocumentPart();
+        } catch (JAXBException | IOException e) {
+            throw new Docx4JException(e.getMessage(), e);
+        }
+    }
+
+    private static byte[] toByteArray(WordprocessingMLPackage wordprocessingMLPackage) throws Docx4JException {
+        ByteArrayOutputStream skeletonBytes = new ByteArrayOutputStream();
+        Docx4J.save(wordprocessingMLPackage, skeletonBytes, Docx4J.FLAG_NONE);
+        return skeletonBytes.toByteArray();
+    }
+
+    private void openDocumentPart() throws IOException {
+        ZipEntry entry;
+        while ((entry = skeleton.getNextEntry()) != null) {
+            String name = entry.getName();
+            if (DOCUMENT_PART_NAME.equals(name)) {
+                String document = new String(readFully(skeleton), UTF_8);
+                String prefix;
+                Matcher matcher = EMPTY_BODY_PATTERN.matcher(document);
+                if (matcher.find()) {
+                    String tagName = matcher.group(1) == null ? "body" : matcher.group(1) + "body";
+                    String attributes = matcher.group(2) == null ? "" : matcher.group(2);
+                    prefix = document.substring(0, matcher.start()) + "<" + tagName + attributes + ">";
+                    documentSuffix = "</" + tagName + ">" + document.substring(matcher.end());
+                } else {
+                    matcher = BODY_START_PATTERN.matcher(document);
+                    if (!matcher.find()) {
+                        throw new IOException("Unable to find body of main document part.");
+                    }
+                    prefix = document.substring(0, matcher.end());
+                    documentSuffix = document.substring(matcher.end());
+                }
+                zipOutputStream.putNextEntry(new ZipEntry(name));
+                zipOutputStream.write(prefix.getBytes(UTF_8));
+                return;
+            }
+            copyEntry(name);
+        }
+        throw new IOException("Main document part not found.");
+    }
+
+    private void copyEntry(String name) throws IOException {
+        zipOutputStream.putNextEntry(new ZipEntry(name));
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = skeleton.read(buffer)) != -1) {
+            zipOutputStream.write(buffer, 0, read);
+        }
+        zipOutputStream.closeEntry();
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Override
+    public void write(Object content) throws Docx4JException {
+        if (closed) {
+            throw new IllegalStateException("Writer is already closed.");
+        }
+        try {
+            marshaller.marshal(content, documentStream);
+        } catch (JAXBException e) {
+            throw new Docx4JException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void writeFragment(String xml) throws Docx4JException {
+        if (closed) {
+            throw new IllegalStateException("Writer is already closed.");
+        }
+        try {
+            zipOutputStream.write(xml.getBytes(UTF_8));
+        } catch (IOException e) {
+            throw new Docx4JException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Abandons the document after a failure, nothing more is written so the destination holds an incomplete zip
+     * stream instead of a valid looking but truncated document. Does nothing if the writer is already closed.
+     */
+    public void abort() {
+        closed = true;
+    }
+
+    /**
+     * Completes the main document part, copies remaining parts from skeleton and finishes the zip stream, the
+     * underlying stream is flushed but not closed. Must only be called once all content has been written, see
+     * {@link #abort()}.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        zipOutputStream.write(documentSuffix.getBytes(UTF_8));
+        zipOutputStream.closeEntry();
+        ZipEntry entry;
+        while ((entry = skeleton.getNextEntry()) != null) {
+            copyEntry(entry.getName());
+        }
+        zipOutputStream.finish();
+        zipOutputStream.flush();
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import com.alphasystem.arabic.model.ArabicWord;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.alphasystem.arabic.model.ArabicLetterType.ALIF;
+import static com.alphasystem.arabic.model.ArabicLetters.WORD_SPACE;
+import static com.alphasystem.arabic.model.ArabicWord.concatenateWithSpace;
+import static com.alphasystem.arabic.model.ArabicWord.getWord;
+
+/**
+ * Bounded cache of Unicode rendering of {@link ArabicWord}s, one cache is used for a document generation (shared by
+ * all charts of the document, including charts built in parallel).
+ * <p>
+ * Only words which are shared by identity between charts, i.e., labels of terms and headers, are cached, see
+ * {@link #toSharedUnicode(ArabicWord)}. Such words are looked up by identity, so a lookup never reads the letters of
+ * the word and never depends on {@link ArabicWord#equals(Object)}. Conjugated words are new instances for every chart
+ * and could never hit, so {@link #toUnicode(ArabicWord)} converts them without storing anything. Prefixes are always
+ * cached. Once the cache reaches its maximum size, cached values are kept and new values are no longer cached. Hits
+ * and misses of shared words are counted, see {@link #getHits()}.
+ * </p>
+ *
+ * @author sali
+ */
+public final class UnicodeCache {
+
+    /**
+     * Unicode of <code>WORD_SPACE</code>, used for every empty cell.
+     */
+    public static final String WORD_SPACE_UNICODE = WORD_SPACE.toUnicode();
+
+    /**
+     * Unicode inserted between two words by {@link ArabicWord#concatenateWithSpace}.
+     */
+    private static final String SPACE_SEPARATOR_UNICODE;
+
+    static {
+        String alif = getWord(ALIF).toUnicode();
+        String joined = concatenateWithSpace(getWord(ALIF), getWord(ALIF)).toUnicode();
+        SPACE_SEPARATOR_UNICODE = joined.substring(alif.length(), joined.length() - alif.length());
+    }
+
+    private static final int DEFAULT_MAX_SIZE = 10000;
+
+    private final int maxSize;
+
+    private final ConcurrentHashMap<Key, String> values;
+
+    private final ConcurrentHashMap<Key, String> prefixes = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public UnicodeCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize maximum number of cached values, zero to convert every word (e.g., to measure the cache)
+     */
+    public UnicodeCache(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize cannot be negative");
+        }
+        this.maxSize = maxSize;
+        this.values = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+    }
+
+    /**
+     * Converts a word of a single chart, e.g., a conjugated word, nothing is cached.
+     *
+     * @param word word to convert
+     * @return Unicode of given word, Unicode of <code>WORD_SPACE</code> if word is null
+     */
+    public String toUnicode(ArabicWord word) {
+        if (word == null || word == WORD_SPACE) {
+            return WORD_SPACE_UNICODE;
+        }
+        return word.toUnicode();
+    }
+
+    /**
+     * Converts a word which is shared by identity between charts, e.g., a label of a term or a header, value is
+     * cached.
+     *
+     * @param word word to convert
+     * @return Unicode of given word, Unicode of <code>WORD_SPACE</code> if word is null
+     */
+    public String toSharedUnicode(ArabicWord word) {
+        if (word == null || word == WORD_SPACE) {
+            return WORD_SPACE_UNICODE;
+        }
+        Key key = new Key(word);
+        String value = lookup(key);
+        if (value == null) {
+            value = store(key, word.toUnicode());
+        }
+        return value;
+    }
+
+    /**
+     * @param prefix prefix, e.g., <code>COMMAND_PREFIX</code>
+     * @param word   word of a single chart to be prefixed
+     * @return Unicode of given word prefixed with given prefix and a space, same as
+     * <code>concatenateWithSpace(prefix, word).toUnicode()</code>
+     */
+    public String toUnicode(ArabicWord prefix, ArabicWord word) {
+        return withPrefix(prefix, toUnicode(word));
+    }
+
+    /**
+     * @param prefix prefix, e.g., <code>ZARF_PREFIX</code>
+     * @param value  Unicode of the word to be prefixed
+     * @return given value prefixed with Unicode of given prefix and a space
+     */
+    String withPrefix(ArabicWord prefix, String value) {
+        if (prefix == null) {
+            return value;
+        }
+        Key key = new Key(prefix);
+        String prefixValue = prefixes.get(key);
+        if (prefixValue == null) {
+            prefixValue = prefix.toUnicode() + SPACE_SEPARATOR_UNICODE;
+            prefixes.putIfAbsent(key, prefixValue);
+        }
+        return prefixValue + value;
+    }
+
+    private String lookup(Key key) {
+        String value = (maxSize == 0) ? null : values.get(key);
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    private String store(Key key, String value) {
+        if (values.size() >= maxSize) {
+            return value;
+        }
+        String previous = values.putIfAbsent(key, value);
+        return (previous == null) ? value : previous;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * @return number of lookups of shared words answered from this cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups of shared words which had to convert the word
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Identity of a word.
+     */
+    private static final class Key {
+
+        private final ArabicWord word;
+
+        private Key(ArabicWord word) {
+            this.word = word;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return (this == obj) || ((obj instanceof Key) && (word == ((Key) obj).word));
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(word);
+        }
+    }
+}
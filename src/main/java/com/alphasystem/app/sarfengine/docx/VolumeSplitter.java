@@ -0,0 +1,147 @@
+/**
+ *
+ */
+package com.alphasystem.app.sarfengine.docx;
+
+import com.alphasystem.app.sarfengine.conjugation.model.SarfChart;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import static com.alphasystem.app.sarfengine.docx.ConjugationHelper.countTerms;
+import static java.lang.String.format;
+
+/**
+ * Splits charts of a book into volumes, a new volume is started once the current volume reaches the maximum number of
+ * charts or the approximate byte budget, whichever comes first. Charts are never reordered, so volume boundaries follow
+ * the order of the charts (i.e., order of {@link com.alphasystem.app.sarfengine.conjugation.model.SarfChartComparator}).
+ *
+ * @author sali
+ */
+public class VolumeSplitter {
+
+    /**
+     * Approximate size of a document without any chart.
+     */
+    private static final long BASE_BYTES = 16 * 1024;
+
+    /**
+     * Approximate compressed size of abbreviated conjugation of a chart.
+     */
+    private static final long ABBREVIATED_BYTES = 2 * 1024;
+
+    /**
+     * Approximate compressed size of a single term of detailed conjugation (its caption and value cells), a pair of
+     * detailed conjugation is two terms, see {@link ConjugationHelper#countTerms}.
+     */
+    private static final long TERM_BYTES = 512;
+
+    /**
+     * Default size estimator, based on the number of sections of a chart.
+     */
+    public static final ToLongFunction<SarfChart> DEFAULT_SIZE_ESTIMATOR = sarfChart -> {
+        long size = 0;
+        if (sarfChart.getSarfSagheer() != null) {
+            size += ABBREVIATED_BYTES;
+        }
+        size += TERM_BYTES * countTerms(sarfChart.getSarfKabeer());
+        return size;
+    };
+
+    private final int maxCharts;
+
+    private final long maxBytes;
+
+    private ToLongFunction<SarfChart> sizeEstimator = DEFAULT_SIZE_ESTIMATOR;
+
+    /**
+     * @param maxCharts maximum number of charts in a volume, zero or negative for no limit
+     * @param maxBytes  approximate maximum size of a volume in bytes, zero or negative for no limit
+     */
+    public VolumeSplitter(int maxCharts, long maxBytes) {
+        this.maxCharts = maxCharts;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param maxCharts maximum number of charts in a volume
+     * @return splitter which only limits number of charts
+     */
+    public static VolumeSplitter byChartCount(int maxCharts) {
+        return new VolumeSplitter(maxCharts, 0);
+    }
+
+    /**
+     * @param maxBytes approximate maximum size of a volume in bytes
+     * @return splitter which only limits size of volumes
+     */
+    public static VolumeSplitter byByteBudget(long maxBytes) {
+        return new VolumeSplitter(0, maxBytes);
+    }
+
+    /**
+     * Name of the file of given volume, e.g., <code>book-vol002.docx</code> for second volume of
+     * <code>book.docx</code>.
+     *
+     * @param file   file of the book
+     * @param volume one based number of the volume
+     * @return file of given volume
+     */
+    public static File getVolumeFile(File file, int volume) {
+        String name = file.getName();
+        int index = name.lastIndexOf('.');
+        String baseName = (index > 0) ? name.substring(0, index) : name;
+        String extension = (index > 0) ? name.substring(index) : "";
+        String volumeName = format("%s-vol%03d%s", baseName, volume, extension);
+        return new File(file.getAbsoluteFile().getParentFile(), volumeName);
+    }
+
+    /**
+     * @param sarfCharts sorted charts
+     * @return charts of each volume, in order
+     */
+    public List<SarfChart[]> split(SarfChart[] sarfCharts) {
+        List<SarfChart[]> volumes = new ArrayList<>();
+        int fromIndex = 0;
+        long bytes = BASE_BYTES;
+        for (int i = 0; i < sarfCharts.length; i++) {
+            long chartBytes = (maxBytes > 0) ? sizeEstimator.applyAsLong(sarfCharts[i]) : 0;
+            int count = i - fromIndex;
+            boolean full = (maxCharts > 0 && count >= maxCharts)
+                    || (maxBytes > 0 && count > 0 && bytes + chartBytes > maxBytes);
+            if (full) {
+                volumes.add(Arrays.copyOfRange(sarfCharts, fromIndex, i));
+                fromIndex = i;
+                bytes = BASE_BYTES;
+            }
+            bytes += chartBytes;
+        }
+        if (fromIndex < sarfCharts.length) {
+            volumes.add(Arrays.copyOfRange(sarfCharts, fromIndex, sarfCharts.length));
+        }
+        return volumes;
+    }
+
+    public int getMaxCharts() {
+        return maxCharts;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public ToLongFunction<SarfChart> getSizeEstimator() {
+        return sizeEstimator;
+    }
+
+    /**
+     * @param sizeEstimator function returning approximate size of a chart in bytes, if null default estimator will be
+     *                      used
+     */
+    public void setSizeEstimator(ToLongFunction<SarfChart> sizeEstimator) {
+        this.sizeEstimator = (sizeEstimator == null) ? DEFAULT_SIZE_ESTIMATOR : sizeEstimator;
+    }
+}